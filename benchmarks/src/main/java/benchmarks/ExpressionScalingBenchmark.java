@@ -0,0 +1,74 @@
+package benchmarks;
+
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.IntegerLiteralExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.type.PrimitiveType;
+import org.openjdk.jmh.annotations.*;
+import transformer.ASTNode;
+import transformer.FunctionRuleBuilder;
+import transformer.RuleBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how FunctionRuleBuilder.buildRule scales with the length of left-associated expressions and guards, such
+ * as a + b + c + ... and x > 0 &amp;&amp; x > 1 &amp;&amp; ... The methods are built directly as ASTs, as JavaParser
+ * itself cannot parse the largest sizes without a bigger thread stack.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xss8m")
+public class ExpressionScalingBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int terms;
+
+    private final RuleBuilder ruleBuilder = new FunctionRuleBuilder();
+    private MethodDeclaration sum;
+    private MethodDeclaration guard;
+
+    @Setup
+    public void setUp() {
+        Expression expression = new NameExpr("x");
+        Expression condition = new BinaryExpr(new NameExpr("x"), new IntegerLiteralExpr("0"), BinaryExpr.Operator.GREATER);
+        for (int i = 1; i < terms; i++) {
+            expression = new BinaryExpr(expression, new NameExpr(i % 2 == 0 ? "x" : "y"), BinaryExpr.Operator.PLUS);
+            condition = new BinaryExpr(condition, new BinaryExpr(new NameExpr("x"),
+                    new IntegerLiteralExpr(String.valueOf(i)), BinaryExpr.Operator.GREATER), BinaryExpr.Operator.AND);
+        }
+        sum = method("sum", new BlockStmt(new NodeList<>(new ReturnStmt(expression))));
+        guard = method("guard", new BlockStmt(new NodeList<>(new IfStmt(condition,
+                new ReturnStmt(new NameExpr("x")), new ReturnStmt(new NameExpr("y"))))));
+    }
+
+    @Benchmark
+    public ASTNode sum() {
+        return ruleBuilder.buildRule(sum);
+    }
+
+    @Benchmark
+    public ASTNode guard() {
+        return ruleBuilder.buildRule(guard);
+    }
+
+    private static MethodDeclaration method(String name, BlockStmt body) {
+        MethodDeclaration method = new MethodDeclaration(new NodeList<>(Modifier.publicModifier()),
+                PrimitiveType.intType(), name);
+        method.addParameter(new Parameter(PrimitiveType.intType(), "x"));
+        method.addParameter(new Parameter(PrimitiveType.intType(), "y"));
+        method.setBody(body);
+        return method;
+    }
+}
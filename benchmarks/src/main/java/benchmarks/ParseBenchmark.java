@@ -0,0 +1,67 @@
+package benchmarks;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import org.openjdk.jmh.annotations.*;
+import transformer.SourceParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures JavaParser parsing of synthetic classes, comparing the default StaticJavaParser configuration with the
+ * translation front-end, both from a string and from a file
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"10", "100"})
+    public int methods;
+
+    @Param({"10", "100"})
+    public int depth;
+
+    private final SourceParser sourceParser = new SourceParser();
+    private String source;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        source = SyntheticSources.generateClass(methods, depth);
+        file = Files.createTempFile("ParseBenchmark", ".java");
+        Files.writeString(file, source, StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public CompilationUnit parse() {
+        return StaticJavaParser.parse(source);
+    }
+
+    @Benchmark
+    public CompilationUnit sourceParser() {
+        return sourceParser.parse(source);
+    }
+
+    @Benchmark
+    public CompilationUnit parseFile() throws IOException {
+        return StaticJavaParser.parse(Files.readString(file));
+    }
+
+    @Benchmark
+    public CompilationUnit sourceParserFile() throws IOException {
+        return sourceParser.parse(file);
+    }
+}
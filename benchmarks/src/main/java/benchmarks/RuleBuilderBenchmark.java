@@ -0,0 +1,49 @@
+package benchmarks;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.openjdk.jmh.annotations.*;
+import transformer.ASTNode;
+import transformer.FunctionRuleBuilder;
+import transformer.RuleBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures FunctionRuleBuilder.buildRule on deep else-if chains and long arithmetic expressions
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleBuilderBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int depth;
+
+    private final RuleBuilder ruleBuilder = new FunctionRuleBuilder();
+    private MethodDeclaration elseIfChain;
+    private MethodDeclaration arithmetic;
+
+    @Setup
+    public void setUp() {
+        elseIfChain = firstMethod(SyntheticSources.elseIfChainClass(depth));
+        arithmetic = firstMethod(SyntheticSources.arithmeticClass(depth));
+    }
+
+    @Benchmark
+    public ASTNode elseIfChain() {
+        return ruleBuilder.buildRule(elseIfChain);
+    }
+
+    @Benchmark
+    public ASTNode arithmetic() {
+        return ruleBuilder.buildRule(arithmetic);
+    }
+
+    private static MethodDeclaration firstMethod(String source) {
+        return StaticJavaParser.parse(source).findFirst(MethodDeclaration.class).orElseThrow();
+    }
+}
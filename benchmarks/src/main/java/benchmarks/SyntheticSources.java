@@ -0,0 +1,75 @@
+package benchmarks;
+
+/**
+ * Generates java sources of a chosen size for the benchmarks
+ */
+public final class SyntheticSources {
+
+    private SyntheticSources() {}
+
+    /**
+     * Generates a class whose methods cycle through an else-if chain, a long arithmetic expression and a nested
+     * condition, each of the given depth
+     * @param methods number of methods in the class
+     * @param depth number of branches, terms or conditions per method
+     * @return java source code of the class
+     */
+    public static String generateClass(int methods, int depth) {
+        StringBuilder source = new StringBuilder("public class Synthetic {\n");
+        for (int i = 0; i < methods; i++) {
+            switch (i % 3) {
+                case 0 -> appendElseIfChain(source, "dispatch" + i, depth);
+                case 1 -> appendArithmetic(source, "sum" + i, depth);
+                default -> appendCondition(source, "check" + i, depth);
+            }
+        }
+        return source.append("}\n").toString();
+    }
+
+    /**
+     * Generates a class with a single method holding an if/else-if chain
+     * @param branches number of branches in the chain
+     * @return java source code of the class
+     */
+    public static String elseIfChainClass(int branches) {
+        StringBuilder source = new StringBuilder("public class Chain {\n");
+        appendElseIfChain(source, "dispatch", branches);
+        return source.append("}\n").toString();
+    }
+
+    /**
+     * Generates a class with a single method returning a left-associated sum
+     * @param terms number of terms in the sum
+     * @return java source code of the class
+     */
+    public static String arithmeticClass(int terms) {
+        StringBuilder source = new StringBuilder("public class Sum {\n");
+        appendArithmetic(source, "sum", terms);
+        return source.append("}\n").toString();
+    }
+
+    private static void appendElseIfChain(StringBuilder source, String name, int branches) {
+        source.append("    public int ").append(name).append("(int x, int y) {\n        ");
+        for (int i = 0; i < branches; i++) {
+            source.append("if (x > ").append(i).append(") {\n            return y + ").append(i)
+                    .append(";\n        } else ");
+        }
+        source.append("{\n            return y;\n        }\n    }\n");
+    }
+
+    private static void appendArithmetic(StringBuilder source, String name, int terms) {
+        source.append("    public int ").append(name).append("(int x, int y) {\n        return x");
+        for (int i = 1; i < terms; i++) {
+            source.append(i % 2 == 0 ? " + x" : " * y");
+        }
+        source.append(";\n    }\n");
+    }
+
+    private static void appendCondition(StringBuilder source, String name, int conditions) {
+        source.append("    public boolean ").append(name).append("(int x, int y) {\n        if (x > y");
+        for (int i = 1; i < conditions; i++) {
+            source.append(i % 2 == 0 ? " && x >= " : " || y < ").append(i);
+        }
+        source.append(") {\n            return true;\n        } else {\n            return false;\n        }\n    }\n");
+    }
+}
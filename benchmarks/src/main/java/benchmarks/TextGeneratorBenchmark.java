@@ -0,0 +1,65 @@
+package benchmarks;
+
+import com.github.javaparser.StaticJavaParser;
+import org.openjdk.jmh.annotations.*;
+import transformer.ASTNode;
+import transformer.ASTTransformer;
+import transformer.LCTRSNode;
+import transformer.LCTRSNodeConverter;
+import transformer.LCTRSTextGenerator;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures LCTRSTextGenerator.generateText on the trees of synthetic classes against emitting the same program as
+ * typed LCTRSNode records. The records live in their own state, so converting them does not change the heap the tree
+ * is emitted from.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextGeneratorBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int methods;
+
+    @Param({"10", "100"})
+    public int depth;
+
+    private final LCTRSTextGenerator textGenerator = new LCTRSTextGenerator();
+    private ASTNode root;
+
+    @Setup
+    public void setUp() {
+        root = new ASTTransformer().transformTree(StaticJavaParser.parse(SyntheticSources.generateClass(methods, depth)));
+    }
+
+    @Benchmark
+    public String generateText() {
+        return textGenerator.generateText(root);
+    }
+
+    @Benchmark
+    public String generateProgram(TypedProgram typed) throws IOException {
+        StringBuilder out = new StringBuilder();
+        textGenerator.generate(typed.program, out);
+        return out.toString();
+    }
+
+    /**
+     * The benchmark's tree converted into typed records
+     */
+    @State(Scope.Benchmark)
+    public static class TypedProgram {
+        private LCTRSNode.Program program;
+
+        @Setup
+        public void setUp(TextGeneratorBenchmark benchmark) {
+            program = new LCTRSNodeConverter().convert(benchmark.root);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package benchmarks;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import org.openjdk.jmh.annotations.*;
+import transformer.ASTNode;
+import transformer.ASTTransformer;
+import transformer.TreeTransformer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures ASTTransformer.transformTree on synthetic classes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int methods;
+
+    @Param({"10", "100"})
+    public int depth;
+
+    private final TreeTransformer transformer = new ASTTransformer();
+    private CompilationUnit cu;
+
+    @Setup
+    public void setUp() {
+        cu = StaticJavaParser.parse(SyntheticSources.generateClass(methods, depth));
+    }
+
+    @Benchmark
+    public ASTNode transformTree() {
+        return transformer.transformTree(cu);
+    }
+}
@@ -1,10 +1,27 @@
-import com.github.javaparser.StaticJavaParser;
-import com.github.javaparser.ast.CompilationUnit;
+import cli.BatchTranslator;
+import cli.Options;
+import cli.OutputTree;
+import cli.PipeMode;
+import cli.SourceCollector;
+import cli.StatsReport;
+import cli.TrainCommand;
+import cli.TranslationClient;
+import cli.TranslationServer;
+import cli.WatchMode;
+import jdk.jfr.Recording;
 import transformer.*;
 
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Main class of JavaToLCTRS
@@ -13,25 +30,234 @@ public class JavaToLCTRS {
 
     /**
      * Main function
-     * @param args first arg should be filepath of java file
+     * @param args filepaths, directories, glob patterns of java files or jar and zip archives, optionally preceded by options
      */
     public static void main(String[] args) {
         if (args.length == 0) {
             System.err.println("Filepath to source code required.");
             return;
         }
+        Options options;
         try {
-            String sourceCode = new String((Files.readAllBytes(Paths.get(args[0]))));
-            CompilationUnit cu = StaticJavaParser.parse(sourceCode);
-            TreeTransformer transformer = new ASTTransformer();
-            ASTNode root = transformer.transformTree(cu);
-            TextGenerator textGenerator = new LCTRSTextGenerator();
-            String output = textGenerator.generateText(root);
-            textGenerator.writeToFile(output, Paths.get(args[0]).toFile());
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+        if (options.getJfrFile() == null) {
+            run(options);
+            return;
+        }
+        Recording recording;
+        try {
+            recording = startRecording(options.getJfrFile());
+        } catch (IOException e) {
+            System.err.println("Error starting flight recording: " + e.getMessage());
+            return;
+        }
+        try {
+            run(options);
+        } finally {
+            recording.close();
+        }
+    }
+
+    //The recording is written when it is closed, or by the JVM if the run exits early
+    private static Recording startRecording(Path destination) throws IOException {
+        Recording recording = new Recording(TranslationEvents.configuration());
+        recording.setName("JavaToLCTRS");
+        recording.setDestination(destination);
+        recording.setDumpOnExit(true);
+        recording.start();
+        return recording;
+    }
+
+    private static void run(Options options) {
+        List<String> inputs = options.getInputs();
+        if ("serve".equals(options.getCommand())) {
+            serve(options);
+        } else if ("train".equals(options.getCommand())) {
+            train(options);
+        } else if (options.isPipe()) {
+            pipe(options);
+        } else if (inputs.isEmpty()) {
+            System.err.println("Filepath to source code required.");
+        } else if ("client".equals(options.getCommand())) {
+            translateOnServer(options);
+        } else if (options.isWatch()) {
+            watch(options);
+        } else if (inputs.size() == 1 && options.getOutput() == null && !SourceCollector.isGlob(inputs.getFirst())
+                && Files.isRegularFile(Paths.get(inputs.getFirst()))
+                && !SourceCollector.isArchive(Paths.get(inputs.getFirst()))) {
+            translateSingleFile(options, Paths.get(inputs.getFirst()));
+        } else {
+            translateBatch(options);
+        }
+    }
+
+    private static Translator createTranslator(Options options) throws IOException {
+        return new Translator(new SymbolTable(), createCache(options), options.getEntries());
+    }
+
+    private static FragmentCache createCache(Options options) throws IOException {
+        if (options.getCacheDirectory() == null) {
+            return null;
+        }
+        return new DiskFragmentCache(options.getCacheDirectory(), options.getCacheSize());
+    }
+
+    private static void translateSingleFile(Options options, Path sourceFile) {
+        if (options.getStatsFile() != null) {
+            translateBatch(options);
+            return;
+        }
+        try {
+            createTranslator(options).translateFile(sourceFile);
         } catch (IOException e) {
             System.err.println("Error reading file: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error translating file: " + e.getMessage());
         } catch (Exception e) {
             System.err.println("Error parsing Java source code: " + e.getMessage());
         }
     }
+
+    private static void serve(Options options) {
+        SocketAddress address = TranslationServer.addressOf(options.getSocketPath(), options.getPort());
+        try {
+            new TranslationServer(address, createCache(options), System.err).run();
+        } catch (IOException e) {
+            System.err.println("Error running translation server: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void train(Options options) {
+        Path archive = options.getArchive() != null ? options.getArchive() : TrainCommand.defaultArchive();
+        try {
+            new TrainCommand(archive, options.getInputs(), options.getRuns(), System.out).run();
+        } catch (IOException e) {
+            System.err.println("Error creating startup archive: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //Standard output carries only results, so everything else goes to standard error
+    private static void pipe(Options options) {
+        int failures;
+        try {
+            FragmentCache cache = createCache(options);
+            PipeMode pipe = new PipeMode(() -> new Translator(new SymbolTable(), cache, options.getEntries()),
+                    options.getThreads(), options.getDelimiter());
+            failures = pipe.run(new FileInputStream(FileDescriptor.in).getChannel(),
+                    new FileOutputStream(FileDescriptor.out).getChannel());
+        } catch (IOException e) {
+            System.err.println("Error in pipe: " + e.getMessage());
+            failures = 1;
+        }
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void translateOnServer(Options options) {
+        SocketAddress address = TranslationServer.addressOf(options.getSocketPath(), options.getPort());
+        TextGenerator textGenerator = new LCTRSTextGenerator();
+        List<Path> sources;
+        try (SourceCollector collector = new SourceCollector(false)) {
+            sources = collector.collect(options.getInputs());
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error collecting source files: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        boolean failed = false;
+        try (TranslationClient client = new TranslationClient(address)) {
+            for (Path source : sources) {
+                try {
+                    textGenerator.writeToFile(client.translate(Files.readString(source)), source.toFile());
+                } catch (IllegalArgumentException e) {
+                    System.err.println("FAILED " + source + ": " + e.getMessage());
+                    failed = true;
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error contacting translation server: " + e.getMessage());
+            failed = true;
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    private static void watch(Options options) {
+        try {
+            new WatchMode(options.getInputs(), createCache(options), options.getThreads(), System.out).run();
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error watching source files: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    //Sources inside archives are only readable while the collector is open, and an output archive is only written
+    //when it is closed, so both are closed before exiting. Failing to write the archive is reported on its own.
+    private static void translateBatch(Options options) {
+        OutputTree outputs = null;
+        if (options.getOutput() != null) {
+            try {
+                outputs = OutputTree.open(options.getOutput());
+            } catch (IOException e) {
+                System.err.println("Error opening output " + options.getOutput() + ": " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        boolean failed;
+        try (SourceCollector collector = new SourceCollector()) {
+            failed = translateBatch(options, collector, outputs);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error collecting source files: " + e.getMessage());
+            failed = true;
+        }
+        if (outputs != null) {
+            try {
+                outputs.close();
+            } catch (IOException e) {
+                System.err.println("Error writing output archive " + options.getOutput() + ": " + e.getMessage());
+                failed = true;
+            }
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean translateBatch(Options options, SourceCollector collector, OutputTree outputs)
+            throws IOException {
+        List<SourceCollector.Source> sources = collector.collectSources(options.getInputs());
+        Translator translator = createTranslator(options);
+        Map<Path, Path> outputFiles = outputs != null ? outputs.outputsFor(sources) : Map.of();
+        for (SourceCollector.Source source : sources) {
+            if (outputs == null && source.path().getFileSystem() != FileSystems.getDefault()) {
+                throw new IllegalArgumentException("Sources inside archives need --out: " + source.path());
+            }
+        }
+        BatchTranslator batch = new BatchTranslator(translator, options.getThreads(),
+                options.getStatsFile() != null, outputs != null ? outputFiles::get : null);
+        long start = System.nanoTime();
+        List<BatchTranslator.Result> results = batch.translateAll(sources.stream()
+                .map(SourceCollector.Source::path)
+                .toList());
+        long wallNanos = System.nanoTime() - start;
+        BatchTranslator.printSummary(results, System.out);
+        if (options.getStatsFile() != null) {
+            try {
+                StatsReport.write(results, wallNanos, options.getStatsFile());
+            } catch (IOException e) {
+                System.err.println("Error writing statistics: " + e.getMessage());
+            }
+        }
+        return results.stream().anyMatch(result -> !result.succeeded());
+    }
 }
@@ -0,0 +1,138 @@
+package cli;
+
+import transformer.TranslationStats;
+import transformer.Translator;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Translates many java files in parallel on a bounded fork-join pool
+ */
+public class BatchTranslator {
+    private final Translator translator;
+    private final int parallelism;
+    private final boolean collectStats;
+    private final Function<Path, Path> outputs;
+
+    /**
+     * Initialise with a translator and the number of worker threads
+     * @param translator translator shared by all workers
+     * @param parallelism maximum number of files translated at once
+     */
+    public BatchTranslator(Translator translator, int parallelism) {
+        this(translator, parallelism, false);
+    }
+
+    /**
+     * Initialise with a translator, the number of worker threads and whether to record statistics of each file
+     * @param translator translator shared by all workers
+     * @param parallelism maximum number of files translated at once
+     * @param collectStats whether each result carries the phase times and sizes of its file
+     */
+    public BatchTranslator(Translator translator, int parallelism, boolean collectStats) {
+        this(translator, parallelism, collectStats, null);
+    }
+
+    /**
+     * Initialise with a translator, the number of worker threads, whether to record statistics of each file and
+     * where to write the translation of each file
+     * @param translator translator shared by all workers
+     * @param parallelism maximum number of files translated at once
+     * @param collectStats whether each result carries the phase times and sizes of its file
+     * @param outputs maps each source file to its output file, called from the workers (can be null to write each
+     *                translation next to its source)
+     */
+    public BatchTranslator(Translator translator, int parallelism, boolean collectStats,
+                           Function<Path, Path> outputs) {
+        this.translator = translator;
+        this.parallelism = Math.max(1, parallelism);
+        this.collectStats = collectStats;
+        this.outputs = outputs;
+    }
+
+    /**
+     * Translates every source file, each to its own .ari file
+     * @param sources java files to translate
+     * @return one result per source file, in the same order as the sources
+     */
+    public List<Result> translateAll(List<Path> sources) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> sources.parallelStream().map(this::translate).toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch translation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch translation failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Result translate(Path source) {
+        TranslationStats stats = collectStats ? new TranslationStats() : null;
+        try {
+            Path output = outputs != null ? outputs.apply(source) : null;
+            if (output != null && stats != null) {
+                translator.translateFile(source, output, stats);
+            } else if (output != null) {
+                translator.translateFile(source, output);
+            } else if (stats != null) {
+                translator.translateFile(source, stats);
+            } else {
+                translator.translateFile(source);
+            }
+            return new Result(source, null, stats);
+        } catch (Exception | StackOverflowError e) {
+            return new Result(source, e.getClass().getSimpleName() + ": " + e.getMessage(), stats);
+        }
+    }
+
+    /**
+     * Prints every failure followed by a count of successes and failures
+     * @param results results returned by translateAll
+     * @param out stream to print to
+     */
+    public static void printSummary(List<Result> results, PrintStream out) {
+        long failures = 0;
+        for (Result result : results) {
+            if (!result.succeeded()) {
+                failures++;
+                out.println("FAILED " + result.source() + ": " + result.error());
+            }
+        }
+        out.println("Translated " + (results.size() - failures) + " of " + results.size()
+                + " files, " + failures + " failed.");
+    }
+
+    /**
+     * Outcome of translating one source file
+     * @param source the translated file
+     * @param error description of the failure, or null if the translation succeeded
+     * @param stats phase times and sizes of the file, or null if they were not collected
+     */
+    public record Result(Path source, String error, TranslationStats stats) {
+
+        /**
+         * Outcome without statistics
+         * @param source the translated file
+         * @param error description of the failure, or null if the translation succeeded
+         */
+        public Result(Path source, String error) {
+            this(source, error, null);
+        }
+
+        /**
+         * Returns whether the file was translated
+         * @return true if no error occurred
+         */
+        public boolean succeeded() {
+            return error == null;
+        }
+    }
+}
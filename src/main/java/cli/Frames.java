@@ -0,0 +1,51 @@
+package cli;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Reads and writes length-prefixed frames: a 4 byte big-endian length followed by that many bytes
+ */
+public final class Frames {
+
+    /**
+     * Largest frame accepted, guarding against reading garbage as a huge length
+     */
+    public static final int MAX_FRAME_SIZE = 1 << 30;
+
+    private Frames() {}
+
+    /**
+     * Writes one frame
+     * @param out stream to write to
+     * @param payload contents of the frame
+     * @throws IOException if the stream cannot be written
+     */
+    public static void write(DataOutputStream out, byte[] payload) throws IOException {
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    /**
+     * Reads one frame
+     * @param in stream to read from
+     * @return contents of the frame, or null if the stream ended before a new frame started
+     * @throws IOException if the stream ends inside a frame or the length is invalid
+     */
+    public static byte[] read(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 0 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return payload;
+    }
+}
@@ -0,0 +1,254 @@
+package cli;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Command line options of JavaToLCTRS
+ */
+public class Options {
+    private static final List<String> COMMANDS = List.of("serve", "client", "train");
+
+    private final List<String> inputs = new ArrayList<>();
+    private String command;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Path cacheDirectory;
+    private long cacheSize = 256L << 20;
+    private boolean watch;
+    private String socketPath;
+    private int port = 7878;
+    private Path archive;
+    private int runs = 5;
+    private Set<String> entries;
+    private Path statsFile;
+    private Path jfrFile;
+    private Path output;
+    private boolean pipe;
+    private String delimiter;
+
+    private Options() {}
+
+    /**
+     * Parses the command line arguments
+     * @param args arguments passed to main
+     * @return the parsed options
+     * @throws IllegalArgumentException if an option is unknown or missing its value
+     */
+    public static Options parse(String[] args) {
+        Options options = new Options();
+        int first = 0;
+        if (args.length > 0 && COMMANDS.contains(args[0])) {
+            options.command = args[0];
+            first = 1;
+        }
+        for (int i = first; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-j", "--threads" -> options.threads = parseCount(arg, valueOf(args, ++i, arg));
+                case "--cache" -> options.cacheDirectory = Paths.get(valueOf(args, ++i, arg));
+                case "--cache-size" -> options.cacheSize = parseSize(arg, valueOf(args, ++i, arg));
+                case "--watch" -> options.watch = true;
+                case "--socket" -> options.socketPath = valueOf(args, ++i, arg);
+                case "--port" -> options.port = parseCount(arg, valueOf(args, ++i, arg));
+                case "--archive" -> options.archive = Paths.get(valueOf(args, ++i, arg));
+                case "--runs" -> options.runs = parseCount(arg, valueOf(args, ++i, arg));
+                case "--entry" -> options.addEntries(valueOf(args, ++i, arg));
+                case "--stats" -> options.statsFile = Paths.get(valueOf(args, ++i, arg));
+                case "--jfr" -> options.jfrFile = Paths.get(valueOf(args, ++i, arg));
+                case "--out" -> options.output = Paths.get(valueOf(args, ++i, arg));
+                case "--pipe" -> options.pipe = true;
+                case "--delimiter" -> options.delimiter = valueOf(args, ++i, arg);
+                default -> {
+                    if (arg.startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                    }
+                    options.inputs.add(arg);
+                }
+            }
+        }
+        return options;
+    }
+
+    //Entries can be repeated or given as a comma separated list
+    private void addEntries(String names) {
+        if (entries == null) {
+            entries = new LinkedHashSet<>();
+        }
+        for (String name : names.split(",")) {
+            if (!name.isBlank()) {
+                entries.add(name.strip());
+            }
+        }
+    }
+
+    private static String valueOf(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+
+    private static int parseCount(String option, String value) {
+        try {
+            int count = Integer.parseInt(value);
+            if (count < 1) {
+                throw new IllegalArgumentException(option + " must be at least 1");
+            }
+            return count;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + option + ": " + value);
+        }
+    }
+
+    //Parses a byte count with an optional K, M or G suffix
+    private static long parseSize(String option, String value) {
+        String digits = value.toUpperCase();
+        int shift = 0;
+        if (digits.endsWith("K") || digits.endsWith("M") || digits.endsWith("G")) {
+            shift = switch (digits.charAt(digits.length() - 1)) {
+                case 'K' -> 10;
+                case 'M' -> 20;
+                default -> 30;
+            };
+            digits = digits.substring(0, digits.length() - 1);
+        }
+        try {
+            return Long.parseLong(digits) << shift;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid size for " + option + ": " + value);
+        }
+    }
+
+    /**
+     * Returns the subcommand given as the first argument
+     * @return "serve", "client", "train" or null when translating files directly
+     */
+    public String getCommand() {
+        return command;
+    }
+
+    /**
+     * Returns the files, directories and glob patterns to translate
+     * @return inputs in the order given
+     */
+    public List<String> getInputs() {
+        return inputs;
+    }
+
+    /**
+     * Returns the number of worker threads for batch translation
+     * @return number of threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Returns the directory of the persistent method cache
+     * @return cache directory, or null if caching is disabled
+     */
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Returns the size limit of the persistent method cache
+     * @return maximum cache size in bytes
+     */
+    public long getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Returns whether to keep watching the inputs and re-translate them as they change
+     * @return true in watch mode
+     */
+    public boolean isWatch() {
+        return watch;
+    }
+
+    /**
+     * Returns the path of the Unix domain socket used by the server and client
+     * @return socket path, or null to use a localhost TCP port
+     */
+    public String getSocketPath() {
+        return socketPath;
+    }
+
+    /**
+     * Returns the localhost TCP port used by the server and client when no socket path is given
+     * @return port number
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Returns the AppCDS archive created by the train command
+     * @return archive path, or null to use the default next to the jar
+     */
+    public Path getArchive() {
+        return archive;
+    }
+
+    /**
+     * Returns how many launches the train command times with and without the archive
+     * @return number of launches
+     */
+    public int getRuns() {
+        return runs;
+    }
+
+    /**
+     * Returns the methods to translate along with every method they call
+     * @return method names, or null to translate every method
+     */
+    public Set<String> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the file the JSON report of phase times and sizes is written to
+     * @return report file, or null if no statistics are collected
+     */
+    public Path getStatsFile() {
+        return statsFile;
+    }
+
+    /**
+     * Returns the file a Flight Recorder recording of the run is written to
+     * @return recording file, or null if the run is not recorded
+     */
+    public Path getJfrFile() {
+        return jfrFile;
+    }
+
+    /**
+     * Returns the directory or archive the translations are written to
+     * @return output directory, .jar or .zip archive, or null to write each translation next to its source
+     */
+    public Path getOutput() {
+        return output;
+    }
+
+    /**
+     * Returns whether compilation units are read from standard input and their translations written to standard
+     * output
+     * @return true in pipe mode
+     */
+    public boolean isPipe() {
+        return pipe;
+    }
+
+    /**
+     * Returns the line separating compilation units in pipe mode
+     * @return delimiter line, or null if units are length-prefixed frames
+     */
+    public String getDelimiter() {
+        return delimiter;
+    }
+}
@@ -0,0 +1,95 @@
+package cli;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Destination of a batch translation that mirrors the layout of its sources, either below a directory or inside a
+ * single jar or zip archive written through the zip file system provider. An archive is only complete once the tree
+ * is closed.
+ */
+public class OutputTree implements Closeable {
+    private final Path root;
+    private final FileSystem archive;
+
+    private OutputTree(Path root, FileSystem archive) {
+        this.root = root;
+        this.archive = archive;
+    }
+
+    /**
+     * Opens a destination, creating the directory or archive if it does not exist. An existing archive keeps the
+     * entries that are not translated again.
+     * @param destination directory, or a file ending with .jar or .zip to write an archive
+     * @return the output tree
+     * @throws IOException if the directory or archive cannot be created
+     */
+    public static OutputTree open(Path destination) throws IOException {
+        if (SourceCollector.isArchive(destination)) {
+            Path parent = destination.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            FileSystem archive = FileSystems.newFileSystem(destination, Map.of("create", "true"));
+            return new OutputTree(archive.getPath("/"), archive);
+        }
+        Files.createDirectories(destination);
+        return new OutputTree(destination, null);
+    }
+
+    /**
+     * Returns the file the translation of a source is written to: its relative path below the destination, with an
+     * .ari extension
+     * @param source collected source file
+     * @return the output file, whose parent directories may not exist yet
+     */
+    public Path outputFor(SourceCollector.Source source) {
+        String name = source.relativePath();
+        int extension = name.lastIndexOf('.');
+        if (extension > name.lastIndexOf('/')) {
+            name = name.substring(0, extension);
+        }
+        return root.resolve(name + ".ari");
+    }
+
+    /**
+     * Returns the output file of every source, like outputFor, checking that no two sources share one. Sources found
+     * under different inputs can have the same relative path, such as the same entry in two jars or a/X.java and
+     * b/X.java given as files, and would otherwise overwrite each other's translation.
+     * @param sources collected source files
+     * @return the output file of each source path
+     * @throws IllegalArgumentException if two sources would be written to the same output file
+     */
+    public Map<Path, Path> outputsFor(List<SourceCollector.Source> sources) {
+        Map<Path, Path> outputs = new HashMap<>();
+        Map<Path, Path> writers = new HashMap<>();
+        for (SourceCollector.Source source : sources) {
+            Path output = outputFor(source);
+            Path other = writers.putIfAbsent(output, source.path());
+            if (other != null) {
+                throw new IllegalArgumentException("Sources " + other + " and " + source.path()
+                        + " would both be translated to " + output);
+            }
+            outputs.put(source.path(), output);
+        }
+        return outputs;
+    }
+
+    /**
+     * Closes the destination, writing the archive if there is one
+     * @throws IOException if the archive cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (archive != null) {
+            archive.close();
+        }
+    }
+}
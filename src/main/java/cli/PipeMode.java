@@ -0,0 +1,280 @@
+package cli;
+
+import transformer.Translator;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Translates a stream of compilation units, so the tool can run as one stage of an in-memory pipeline without
+ * touching the file system. Units are read from the input either as length-prefixed frames or as text separated by
+ * delimiter lines, translated in parallel, and each result is written to the output in input order as soon as it and
+ * every result before it are done. Both ends are channels read and written through direct buffers, so standard input
+ * and output can be passed as the file channels of their descriptors.
+ * <p>
+ * With frames, every result is a status byte (TranslationServer.STATUS_OK or STATUS_ERROR) followed by a frame holding
+ * the LCTRS text or the error message, as the translation server replies. With a delimiter, every result is the LCTRS
+ * text, or a comment starting with "; error: " for a failed unit, followed by the delimiter line.
+ */
+public class PipeMode {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final CompletableFuture<Reply> END = CompletableFuture.completedFuture(null);
+
+    private final Supplier<Translator> translators;
+    private final int parallelism;
+    private final String delimiter;
+
+    /**
+     * Initialise with the translators to use, the number of worker threads and the framing of units
+     * @param translators creates the translator of each unit
+     * @param parallelism maximum number of units translated at once
+     * @param delimiter line separating units, or null for length-prefixed frames
+     */
+    public PipeMode(Supplier<Translator> translators, int parallelism, String delimiter) {
+        this.translators = translators;
+        this.parallelism = Math.max(1, parallelism);
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Translates every unit of the input until it ends
+     * @param in stream the units are read from
+     * @param out stream the results are written to, flushed whenever the next result is not ready yet
+     * @return number of units that failed to translate
+     * @throws IOException if the input is malformed or either stream fails
+     */
+    public int run(InputStream in, OutputStream out) throws IOException {
+        return run(Channels.newChannel(in), Channels.newChannel(out));
+    }
+
+    /**
+     * Translates every unit of the input until it ends
+     * @param in channel the units are read from
+     * @param out channel the results are written to, flushed whenever the next result is not ready yet
+     * @return number of units that failed to translate
+     * @throws IOException if the input is malformed or either channel fails
+     */
+    public int run(ReadableByteChannel in, WritableByteChannel out) throws IOException {
+        //Results wait in input order; the bound keeps a fast reader from queueing the whole input in memory
+        BlockingQueue<CompletableFuture<Reply>> pending = new ArrayBlockingQueue<>(parallelism * 2);
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        //The reader runs on its own thread so a client waiting for a reply before sending the next unit gets it
+        Thread reader = Thread.ofPlatform().name("pipe-reader").daemon().start(() -> read(in, pending, workers));
+        Output output = new Output(out);
+        int failures = 0;
+        try {
+            while (true) {
+                //Everything written so far is flushed before waiting, for the next unit or for its translation
+                CompletableFuture<Reply> next = pending.poll();
+                if (next == null) {
+                    output.flush();
+                    next = pending.take();
+                }
+                if (next == END) {
+                    break;
+                } else if (!next.isDone()) {
+                    output.flush();
+                }
+                Reply reply = next.join();
+                if (reply.error() != null) {
+                    failures++;
+                }
+                write(reply, output);
+            }
+            output.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Pipe interrupted", e);
+        } catch (CompletionException e) {
+            //The results before a malformed unit are still delivered
+            output.flush();
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e;
+        } finally {
+            workers.shutdownNow();
+            reader.interrupt();
+        }
+        return failures;
+    }
+
+    private void read(ReadableByteChannel in, BlockingQueue<CompletableFuture<Reply>> pending,
+                      ExecutorService workers) {
+        try {
+            try {
+                if (delimiter == null) {
+                    readFrames(in, pending, workers);
+                } else {
+                    readDelimited(in, pending, workers);
+                }
+            } catch (IOException e) {
+                pending.put(CompletableFuture.failedFuture(new UncheckedIOException(e)));
+            }
+            pending.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void readFrames(ReadableByteChannel in, BlockingQueue<CompletableFuture<Reply>> pending,
+                            ExecutorService workers) throws IOException, InterruptedException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+        byte[] frame;
+        while ((frame = readFrame(in, buffer)) != null) {
+            submit(new String(frame, StandardCharsets.UTF_8), pending, workers);
+        }
+    }
+
+    //Reads a frame in the format of Frames, taking what the buffer already holds and reading the rest of a large payload
+    //straight into its array. Unlike a stream of frames, input ending inside a length is an error.
+    private static byte[] readFrame(ReadableByteChannel in, ByteBuffer buffer) throws IOException {
+        while (buffer.remaining() < Integer.BYTES) {
+            buffer.compact();
+            int read = in.read(buffer);
+            buffer.flip();
+            if (read < 0) {
+                if (buffer.hasRemaining()) {
+                    throw new EOFException("Input ended inside a frame length");
+                }
+                return null;
+            }
+        }
+        int length = buffer.getInt();
+        if (length < 0 || length > Frames.MAX_FRAME_SIZE) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        byte[] payload = new byte[length];
+        int buffered = Math.min(length, buffer.remaining());
+        buffer.get(payload, 0, buffered);
+        ByteBuffer rest = ByteBuffer.wrap(payload, buffered, length - buffered);
+        while (rest.hasRemaining()) {
+            if (in.read(rest) < 0) {
+                throw new EOFException("Input ended inside a frame");
+            }
+        }
+        return payload;
+    }
+
+    //A trailing unit without a closing delimiter is translated unless it is empty
+    private void readDelimited(ReadableByteChannel in, BlockingQueue<CompletableFuture<Reply>> pending,
+                               ExecutorService workers) throws IOException, InterruptedException {
+        BufferedReader input = new BufferedReader(Channels.newReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        StringBuilder unit = new StringBuilder();
+        String line;
+        while ((line = input.readLine()) != null) {
+            if (line.equals(delimiter)) {
+                submit(unit.toString(), pending, workers);
+                unit.setLength(0);
+            } else {
+                unit.append(line).append('\n');
+            }
+        }
+        if (!unit.isEmpty()) {
+            submit(unit.toString(), pending, workers);
+        }
+    }
+
+    private void submit(String source, BlockingQueue<CompletableFuture<Reply>> pending, ExecutorService workers)
+            throws InterruptedException {
+        pending.put(CompletableFuture.supplyAsync(() -> translate(source), workers));
+    }
+
+    private Reply translate(String source) {
+        try {
+            return new Reply(translators.get().translateSource(source), null);
+        } catch (Exception | StackOverflowError e) {
+            return new Reply(null, e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    private void write(Reply reply, Output out) throws IOException {
+        if (delimiter == null) {
+            byte[] payload = (reply.error() == null ? reply.text() : reply.error()).getBytes(StandardCharsets.UTF_8);
+            out.writeByte(reply.error() == null ? TranslationServer.STATUS_OK : TranslationServer.STATUS_ERROR);
+            out.writeInt(payload.length);
+            out.write(payload);
+            return;
+        }
+        String text = reply.error() == null ? reply.text() : "; error: " + reply.error().replace('\n', ' ');
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        if (!text.endsWith("\n")) {
+            out.writeByte('\n');
+        }
+        out.write((delimiter + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Buffered writer of results to a channel. Results larger than the buffer are written from their own array.
+     */
+    private static final class Output {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        private void writeByte(int value) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put((byte) value);
+        }
+
+        private void writeInt(int value) throws IOException {
+            if (buffer.remaining() < Integer.BYTES) {
+                flush();
+            }
+            buffer.putInt(value);
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            if (bytes.length <= buffer.remaining()) {
+                buffer.put(bytes);
+                return;
+            }
+            flush();
+            if (bytes.length <= buffer.remaining()) {
+                buffer.put(bytes);
+            } else {
+                writeFully(ByteBuffer.wrap(bytes));
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        private void writeFully(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Result of one unit
+     * @param text LCTRS text, or null if the unit failed
+     * @param error description of the failure, or null if the unit was translated
+     */
+    private record Reply(String text, String error) {}
+}
@@ -0,0 +1,197 @@
+package cli;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Expands command line inputs (files, directories, glob patterns and jar or zip archives) into the java source files
+ * to translate. Archives are opened through the zip file system provider and their entries read in place, so the
+ * collector has to stay open until the sources it returned have been read.
+ */
+public class SourceCollector implements Closeable {
+
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    private final List<FileSystem> archives = new ArrayList<>();
+    private final boolean readArchives;
+
+    /**
+     * Default constructor, reading the entries of archive inputs
+     */
+    public SourceCollector() {
+        this(true);
+    }
+
+    /**
+     * Initialise for modes that write each translation next to its source or read sources as plain files, which
+     * cannot handle sources inside archives
+     * @param readArchives whether archive inputs are read, rather than rejected
+     */
+    public SourceCollector(boolean readArchives) {
+        this.readArchives = readArchives;
+    }
+
+    /**
+     * Expands each input into source files. Files are kept as given, directories are searched recursively for
+     * .java files and anything containing glob characters is matched against the files below its fixed prefix.
+     * Jar and zip archives, given directly or matched by a pattern, are searched for .java entries.
+     * @param inputs files, directories, glob patterns or archives
+     * @return the source files in input order, without duplicates
+     * @throws IOException if a directory or archive cannot be read
+     */
+    public List<Path> collect(List<String> inputs) throws IOException {
+        return collectSources(inputs).stream().map(Source::path).toList();
+    }
+
+    /**
+     * Expands each input into source files like collect, keeping the path of each file relative to the input it was
+     * found under, so the outputs can mirror the layout of the inputs
+     * @param inputs files, directories, glob patterns or archives
+     * @return the source files in input order, without duplicates
+     * @throws IOException if a directory or archive cannot be read
+     * @throws IllegalArgumentException if an input does not exist, or is an archive and archives are not read
+     */
+    public List<Source> collectSources(List<String> inputs) throws IOException {
+        Map<Path, Source> sources = new LinkedHashMap<>();
+        for (String input : inputs) {
+            if (isGlob(input)) {
+                for (Source match : expandGlob(input)) {
+                    addFile(sources, match);
+                }
+            } else {
+                Path path = Paths.get(input);
+                if (Files.isDirectory(path)) {
+                    addAll(sources, walk(path, file -> file.toString().endsWith(".java")));
+                } else if (Files.isRegularFile(path)) {
+                    addFile(sources, new Source(path, path.getFileName().toString()));
+                } else {
+                    throw new IllegalArgumentException("No such file or directory: " + input);
+                }
+            }
+        }
+        return new ArrayList<>(sources.values());
+    }
+
+    /**
+     * Checks whether a file is a jar or zip archive
+     * @param file file to check
+     * @return true if the file name ends with .jar or .zip
+     */
+    public static boolean isArchive(Path file) {
+        Path name = file.getFileName();
+        String lower = name == null ? "" : name.toString().toLowerCase(Locale.ROOT);
+        return lower.endsWith(".jar") || lower.endsWith(".zip");
+    }
+
+    /**
+     * Closes the archives opened while collecting
+     * @throws IOException if an archive cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (FileSystem archive : archives) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        archives.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void addFile(Map<Path, Source> sources, Source file) throws IOException {
+        if (isArchive(file.path()) && !readArchives) {
+            throw new IllegalArgumentException("Archives can only be translated in a batch with --out: "
+                    + file.path());
+        } else if (isArchive(file.path())) {
+            FileSystem archive = FileSystems.newFileSystem(file.path());
+            archives.add(archive);
+            addAll(sources, walk(archive.getPath("/"), entry -> entry.toString().endsWith(".java")));
+        } else {
+            sources.putIfAbsent(file.path(), file);
+        }
+    }
+
+    private static void addAll(Map<Path, Source> sources, List<Source> files) {
+        for (Source file : files) {
+            sources.putIfAbsent(file.path(), file);
+        }
+    }
+
+    /**
+     * Checks whether an input should be treated as a glob pattern
+     * @param input command line input
+     * @return true if the input contains glob characters
+     */
+    public static boolean isGlob(String input) {
+        for (char c : input.toCharArray()) {
+            if (GLOB_CHARACTERS.indexOf(c) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Source> expandGlob(String pattern) throws IOException {
+        String normalised = pattern.replace('\\', '/');
+        String[] segments = normalised.split("/");
+        int firstGlob = 0;
+        while (firstGlob < segments.length && !isGlob(segments[firstGlob])) {
+            firstGlob++;
+        }
+        String base = String.join("/", List.of(segments).subList(0, firstGlob));
+        Path basePath = base.isEmpty() ? Paths.get(normalised.startsWith("/") ? "/" : ".") : Paths.get(base);
+        String remainder = String.join("/", List.of(segments).subList(firstGlob, segments.length));
+        if (!Files.isDirectory(basePath)) {
+            return List.of();
+        }
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + remainder);
+        return walk(basePath, file -> matcher.matches(basePath.relativize(file)));
+    }
+
+    //Relative paths always use / as separator, whatever the file system of the input
+    private List<Source> walk(Path directory, PathMatcher filter) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(filter::matches)
+                    .sorted()
+                    .map(file -> new Source(file, relativeName(directory.relativize(file))))
+                    .toList();
+        }
+    }
+
+    private static String relativeName(Path relative) {
+        StringBuilder name = new StringBuilder();
+        for (Path element : relative) {
+            if (!name.isEmpty()) {
+                name.append('/');
+            }
+            name.append(element);
+        }
+        return name.toString();
+    }
+
+    /**
+     * A source file to translate
+     * @param path the file, possibly inside an archive
+     * @param relativePath path of the file relative to the directory, archive or pattern base it was found under,
+     *                     or just its name if it was given directly
+     */
+    public record Source(Path path, String relativePath) {}
+}
@@ -0,0 +1,116 @@
+package cli;
+
+import transformer.TranslationStats;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes the statistics collected by a batch translation as JSON: one object per file, in input order, followed by
+ * the totals of the batch. Times are in milliseconds.
+ * <pre>
+ * {"files": [{"file": "A.java", "error": null, "phases": {"read": 0.125, ...}, "totalMs": 9.5, "methods": 3, ...}],
+ *  "batch": {"files": 1, "failed": 0, "wallMs": 10.2, "phases": {...}, ..., "filesPerSecond": 98.0}}
+ * </pre>
+ */
+public final class StatsReport {
+
+    private StatsReport() {}
+
+    /**
+     * Writes the report of a batch into a file, replacing its contents
+     * @param results results carrying statistics, as returned by BatchTranslator.translateAll
+     * @param wallNanos wall clock time the whole batch took
+     * @param file file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(List<BatchTranslator.Result> results, long wallNanos, Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            write(results, wallNanos, out);
+        }
+    }
+
+    /**
+     * Writes the report of a batch
+     * @param results results carrying statistics, as returned by BatchTranslator.translateAll
+     * @param wallNanos wall clock time the whole batch took
+     * @param out destination of the JSON text
+     * @throws IOException if the output cannot be written
+     */
+    public static void write(List<BatchTranslator.Result> results, long wallNanos, Appendable out)
+            throws IOException {
+        TranslationStats total = new TranslationStats();
+        long failed = 0;
+        out.append("{\"files\": [");
+        for (int i = 0; i < results.size(); i++) {
+            BatchTranslator.Result result = results.get(i);
+            TranslationStats stats = result.stats() != null ? result.stats() : new TranslationStats();
+            total.add(stats);
+            if (!result.succeeded()) {
+                failed++;
+            }
+            out.append(i == 0 ? "\n  {" : ",\n  {");
+            out.append("\"file\": ").append(quote(result.source().toString()));
+            out.append(", \"error\": ").append(result.error() == null ? "null" : quote(result.error()));
+            appendStats(stats, out);
+            out.append('}');
+        }
+        out.append("],\n \"batch\": {\"files\": ").append(Integer.toString(results.size()));
+        out.append(", \"failed\": ").append(Long.toString(failed));
+        out.append(", \"wallMs\": ").append(millis(wallNanos));
+        appendStats(total, out);
+        double seconds = Math.max(wallNanos, 1) / 1e9;
+        out.append(", \"filesPerSecond\": ").append(decimal(results.size() / seconds));
+        out.append(", \"methodsPerSecond\": ").append(decimal(total.getMethods() / seconds));
+        out.append(", \"outputBytesPerSecond\": ").append(decimal(total.getOutputBytes() / seconds));
+        out.append("}}\n");
+    }
+
+    private static void appendStats(TranslationStats stats, Appendable out) throws IOException {
+        out.append(", \"phases\": {");
+        for (TranslationStats.Phase phase : TranslationStats.Phase.values()) {
+            out.append(phase.ordinal() == 0 ? "\"" : ", \"").append(phase.getName()).append("\": ")
+                    .append(millis(stats.getNanos(phase)));
+        }
+        out.append("}, \"totalMs\": ").append(millis(stats.getTotalNanos()));
+        out.append(", \"methods\": ").append(Long.toString(stats.getMethods()));
+        out.append(", \"rules\": ").append(Long.toString(stats.getRules()));
+        out.append(", \"nodes\": ").append(Long.toString(stats.getNodes()));
+        out.append(", \"outputBytes\": ").append(Long.toString(stats.getOutputBytes()));
+    }
+
+    private static String millis(long nanos) {
+        return decimal(nanos / 1e6);
+    }
+
+    private static String decimal(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String quote(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,190 @@
+package cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.github.javaparser.utils.Utils.removeFileExtension;
+
+/**
+ * Creates an AppCDS archive for fast startup. A child JVM translates representative sources with
+ * -XX:ArchiveClassesAtExit, which dumps every class it loaded (JavaParser included) into the archive. The launcher
+ * script then starts the tool with -XX:SharedArchiveFile whenever the archive sits next to the jar. Finally the startup
+ * time of a single translation is measured with and without the archive. Every translation made while training is
+ * written to a temporary directory that is deleted afterwards, so the training inputs are left untouched.
+ */
+public class TrainCommand {
+    private static final String MAIN_CLASS = "JavaToLCTRS";
+
+    private static final Map<String, String> TRAINING_SOURCES = Map.of(
+            "IntAddFiveTest.java", """
+                    public class IntAddFiveTest {
+                        public static int addFive(int x) {
+                            return x + 5;
+                        }
+
+                        public static int addFiveIfOverTen(int x) {
+                            if (x > 10) {
+                                return addFive(x);
+                            } else {
+                                return x;
+                            }
+                        }
+                    }""",
+            "DoubleCompareDoublesTest.java", """
+                    public class DoubleCompareDoublesTest {
+                        public double compareDoubles(double x, double y) {
+                            if (x > y) {
+                                return x;
+                            } else if (y > x) {
+                                return y;
+                            } else {
+                                return y + x;
+                            }
+                        }
+                    }""",
+            "BoolAreNumbersEqual.java", """
+                    public class BoolAreNumbersEqual {
+                        public boolean areNumbersEqual(int x) {
+                            int y = 10;
+                            return x == y && !(x < 0);
+                        }
+                    }""");
+
+    private final Path archive;
+    private final List<String> trainingInputs;
+    private final int runs;
+    private final PrintStream out;
+
+    /**
+     * Initialise the training run
+     * @param archive path of the archive to create
+     * @param trainingInputs files, directories or glob patterns to translate while training; built-in samples are
+     *                       used when empty
+     * @param runs number of launches timed with and without the archive
+     * @param out stream progress and timings are reported to
+     */
+    public TrainCommand(Path archive, List<String> trainingInputs, int runs, PrintStream out) {
+        this.archive = archive.toAbsolutePath();
+        this.trainingInputs = trainingInputs;
+        this.runs = runs;
+        this.out = out;
+    }
+
+    /**
+     * Returns the archive path the launcher looks for: the jar path with a .jsa extension, or JavaToLCTRS.jsa in the
+     * working directory when not running from a jar
+     * @return default archive path
+     */
+    public static Path defaultArchive() {
+        Path jar = runningJar();
+        if (jar == null) {
+            return Paths.get(MAIN_CLASS + ".jsa");
+        }
+        return jar.resolveSibling(removeFileExtension(jar.getFileName().toString()) + ".jsa");
+    }
+
+    /**
+     * Creates the archive and reports the startup time with and without it
+     * @throws IOException if the training JVM fails or the archive is not created
+     * @throws InterruptedException if interrupted while waiting for a child JVM
+     */
+    public void run() throws IOException, InterruptedException {
+        if (runningJar() == null) {
+            throw new IOException("AppCDS archives can only hold classes loaded from jar files; "
+                    + "run train from the packaged jar (mvn package)");
+        }
+        Path workDirectory = Files.createTempDirectory("javatolctrs-train");
+        try {
+            List<String> inputs = trainingInputs.isEmpty() ? writeTrainingSources(workDirectory) : trainingInputs;
+            List<String> output = List.of("--out", workDirectory.resolve("out").toString());
+            Files.deleteIfExists(archive);
+            out.println("Training on " + inputs + " ...");
+            List<String> training = new ArrayList<>(List.of("-XX:ArchiveClassesAtExit=" + archive));
+            training.addAll(output);
+            training.addAll(inputs);
+            long trainingMillis = launch(training);
+            if (!Files.isRegularFile(archive)) {
+                throw new IOException("The JVM did not create " + archive);
+            }
+            out.println("Created " + archive + " (" + Files.size(archive) / 1024 + " KiB) in " + trainingMillis + " ms");
+            compareStartup(inputs.getFirst(), output);
+        } finally {
+            deleteTree(workDirectory);
+        }
+    }
+
+    private void compareStartup(String input, List<String> output) throws IOException, InterruptedException {
+        long without = 0;
+        long with = 0;
+        List<String> arguments = new ArrayList<>(output);
+        arguments.add(input);
+        List<String> shared = new ArrayList<>(List.of("-XX:SharedArchiveFile=" + archive, "-Xshare:auto"));
+        shared.addAll(arguments);
+        for (int i = 0; i < runs; i++) {
+            without += launch(arguments);
+            with += launch(shared);
+        }
+        without /= runs;
+        with /= runs;
+        out.println("Average wall time of one translation over " + runs + " launches:");
+        out.println("  without archive: " + without + " ms");
+        out.println("  with archive:    " + with + " ms (" + (100 - 100 * with / Math.max(1, without))
+                + "% faster)");
+    }
+
+    //Launches a child JVM running the tool on the same classpath; arguments starting with -X are JVM options
+    private long launch(List<String> arguments) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        arguments.stream().filter(arg -> arg.startsWith("-X")).forEach(command::add);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(MAIN_CLASS);
+        arguments.stream().filter(arg -> !arg.startsWith("-X")).forEach(command::add);
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        int exitCode = process.waitFor();
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (exitCode != 0) {
+            throw new IOException("Child JVM exited with code " + exitCode + ": " + String.join(" ", command));
+        }
+        return millis;
+    }
+
+    private List<String> writeTrainingSources(Path directory) throws IOException {
+        for (Map.Entry<String, String> source : TRAINING_SOURCES.entrySet()) {
+            Files.writeString(directory.resolve(source.getKey()), source.getValue());
+        }
+        return List.of(directory.toString());
+    }
+
+    private static Path runningJar() {
+        try {
+            Path location = Paths.get(TrainCommand.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            return Files.isRegularFile(location) && location.toString().endsWith(".jar") ? location : null;
+        } catch (URISyntaxException | SecurityException e) {
+            return null;
+        }
+    }
+
+    private static void deleteTree(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package cli;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sends translation requests to a running TranslationServer over a single connection
+ */
+public class TranslationClient implements Closeable {
+    private final SocketChannel channel;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    /**
+     * Connects to a server
+     * @param address address the server listens on
+     * @throws IOException if the connection cannot be made
+     */
+    public TranslationClient(SocketAddress address) throws IOException {
+        channel = address instanceof UnixDomainSocketAddress
+                ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                : SocketChannel.open();
+        channel.connect(address);
+        in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+    }
+
+    /**
+     * Translates java source code on the server
+     * @param source java source code
+     * @return LCTRS text
+     * @throws IOException if the connection fails
+     * @throws IllegalArgumentException if the server could not translate the source
+     */
+    public String translate(String source) throws IOException {
+        Frames.write(out, source.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        int status = in.read();
+        byte[] reply = Frames.read(in);
+        if (status < 0 || reply == null) {
+            throw new EOFException("Server closed the connection");
+        }
+        String text = new String(reply, StandardCharsets.UTF_8);
+        if (status != TranslationServer.STATUS_OK) {
+            throw new IllegalArgumentException(text);
+        }
+        return text;
+    }
+
+    /**
+     * Closes the connection
+     * @throws IOException if the connection cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
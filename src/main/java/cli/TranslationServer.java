@@ -0,0 +1,154 @@
+package cli;
+
+import transformer.FragmentCache;
+import transformer.SymbolTable;
+import transformer.Translator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps a warmed-up translation pipeline resident and serves translation requests over a Unix domain socket or a
+ * localhost TCP port. Every connection is served on its own virtual thread and may send any number of requests.
+ * A request is a frame holding java source code as UTF-8; the reply is a status byte (STATUS_OK or STATUS_ERROR)
+ * followed by a frame holding the LCTRS text or the error message.
+ */
+public class TranslationServer {
+
+    /**
+     * Status byte of a successful translation
+     */
+    public static final int STATUS_OK = 0;
+
+    /**
+     * Status byte of a failed translation
+     */
+    public static final int STATUS_ERROR = 1;
+
+    private static final String WARM_UP_SOURCE = """
+            class WarmUp {
+                int max(int x, int y) {
+                    if (x > y) {
+                        return x + 1;
+                    } else if (y > x) {
+                        return y * 2;
+                    } else {
+                        return x;
+                    }
+                }
+            }""";
+
+    private final SocketAddress address;
+    private final FragmentCache cache;
+    private final PrintStream log;
+
+    /**
+     * Initialise with the address to listen on
+     * @param address a UnixDomainSocketAddress or an InetSocketAddress
+     * @param cache cache shared by all requests (can be null)
+     * @param log stream connection errors are reported to
+     */
+    public TranslationServer(SocketAddress address, FragmentCache cache, PrintStream log) {
+        this.address = address;
+        this.cache = cache;
+        this.log = log;
+    }
+
+    /**
+     * Returns the address for a socket path or, if it is null, the localhost TCP port
+     * @param socketPath path of a Unix domain socket (can be null)
+     * @param port TCP port used when no socket path is given
+     * @return the socket address
+     */
+    public static SocketAddress addressOf(String socketPath, int port) {
+        if (socketPath != null) {
+            return UnixDomainSocketAddress.of(socketPath);
+        }
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    /**
+     * Warms up the pipeline, then accepts connections until the thread is interrupted or the socket fails
+     * @throws IOException if the socket cannot be bound
+     */
+    public void run() throws IOException {
+        warmUp();
+        try (ServerSocketChannel server = open();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            log.println("Listening on " + address);
+            while (!Thread.currentThread().isInterrupted()) {
+                SocketChannel client = server.accept();
+                executor.submit(() -> serve(client));
+            }
+        } finally {
+            if (address instanceof UnixDomainSocketAddress unixAddress) {
+                Files.deleteIfExists(unixAddress.getPath());
+            }
+        }
+    }
+
+    /**
+     * Translates java source code the same way a request would
+     * @param source java source code
+     * @return LCTRS text
+     */
+    public String translate(String source) {
+        //A fresh symbol table per request keeps the long-running process from accumulating identifiers
+        return new Translator(new SymbolTable(), cache).translateSource(source);
+    }
+
+    private ServerSocketChannel open() throws IOException {
+        if (address instanceof UnixDomainSocketAddress unixAddress) {
+            Files.deleteIfExists(unixAddress.getPath());
+            return ServerSocketChannel.open(StandardProtocolFamily.UNIX).bind(address);
+        }
+        return ServerSocketChannel.open().bind(address);
+    }
+
+    //Runs a few translations so the classes are loaded and the hot paths compiled before the first request
+    private void warmUp() {
+        Translator translator = new Translator();
+        for (int i = 0; i < 200; i++) {
+            translator.translateSource(WARM_UP_SOURCE);
+        }
+    }
+
+    private void serve(SocketChannel client) {
+        try (client;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(client)));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(client)))) {
+            byte[] request;
+            while ((request = Frames.read(in)) != null) {
+                String source = new String(request, StandardCharsets.UTF_8);
+                try {
+                    byte[] reply = translate(source).getBytes(StandardCharsets.UTF_8);
+                    out.writeByte(STATUS_OK);
+                    Frames.write(out, reply);
+                } catch (Exception | StackOverflowError e) {
+                    out.writeByte(STATUS_ERROR);
+                    Frames.write(out, (e.getClass().getSimpleName() + ": " + e.getMessage())
+                            .getBytes(StandardCharsets.UTF_8));
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            log.println("Connection error: " + e);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package cli;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.comments.Comment;
+import transformer.ASTNodeFactory;
+import transformer.ASTTransformer;
+import transformer.ConstantFolder;
+import transformer.FragmentCache;
+import transformer.LCTRSTextGenerator;
+import transformer.MemoryFragmentCache;
+import transformer.SymbolTable;
+import transformer.TextGenerator;
+import transformer.Translator;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Keeps translating a set of java files as they change. Each file keeps its parsed compilation unit and the LCTRS
+ * branches of its methods in memory, so a save that does not change the code is ignored and only the methods that
+ * were edited are translated again. When a file is deleted, its translation is deleted with it.
+ */
+public class WatchMode {
+    private static final long SETTLE_MILLIS = 100;
+
+    private final List<String> inputs;
+    private final FragmentCache cache;
+    private final int parallelism;
+    private final PrintStream out;
+    private final SourceCollector collector = new SourceCollector(false);
+    private final SymbolTable symbols = new SymbolTable();
+    private final TextGenerator textGenerator = new LCTRSTextGenerator();
+    private final Map<Path, FileState> files = new ConcurrentHashMap<>();
+
+    /**
+     * Initialise with the inputs to watch
+     * @param inputs files, directories or glob patterns, as accepted by SourceCollector
+     * @param out stream progress is reported to
+     */
+    public WatchMode(List<String> inputs, PrintStream out) {
+        this(inputs, null, Runtime.getRuntime().availableProcessors(), out);
+    }
+
+    /**
+     * Initialise with the inputs to watch, a persistent cache and the number of worker threads
+     * @param inputs files, directories or glob patterns, as accepted by SourceCollector
+     * @param cache cache shared by every file, consulted for methods not in the file's own fragments (can be null)
+     * @param parallelism maximum number of files translated at once
+     * @param out stream progress is reported to
+     */
+    public WatchMode(List<String> inputs, FragmentCache cache, int parallelism, PrintStream out) {
+        this.inputs = inputs;
+        this.cache = cache;
+        this.parallelism = Math.max(1, parallelism);
+        this.out = out;
+    }
+
+    /**
+     * Translates every input and then re-translates files as they change, until the thread is interrupted
+     * @throws IOException if the inputs cannot be read or watched
+     */
+    public void run() throws IOException {
+        List<Path> sources = collector.collect(inputs);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            updateAll(pool, sources);
+            Set<Path> watched = new HashSet<>();
+            for (Path directory : watchedDirectories(sources)) {
+                register(watcher, directory, watched);
+            }
+            out.println("Watching " + sources.size() + " files for changes.");
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changed = new LinkedHashSet<>();
+                WatchKey key = watcher.take();
+                do {
+                    collectChanges(watcher, key, changed, watched);
+                    key = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                } while (key != null);
+                Set<Path> current = new HashSet<>(absolute(collector.collect(inputs)));
+                changed.removeIf(file -> !current.contains(file) && !files.containsKey(file));
+                updateAll(pool, changed);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Re-translates a file if its code changed since it was last translated. If the file was deleted, its
+     * translation is deleted as well.
+     * @param sourceFile java file to update
+     * @return the outcome, or null if the file was deleted or its code is unchanged
+     * @throws IOException if the file cannot be read or its output written or deleted
+     */
+    public Update update(Path sourceFile) throws IOException {
+        sourceFile = sourceFile.toAbsolutePath().normalize();
+        if (!Files.isRegularFile(sourceFile)) {
+            remove(sourceFile);
+            return null;
+        }
+        FileState state = files.computeIfAbsent(sourceFile, file -> new FileState());
+        synchronized (state) {
+            CompilationUnit cu = state.translator.parseFile(sourceFile);
+            cu.getAllContainedComments().forEach(Comment::remove);
+            cu.removeComment();
+            if (cu.equals(state.cu)) {
+                return null;
+            }
+            long start = System.nanoTime();
+            state.translator.translateFile(cu, sourceFile);
+            Update update = new Update(sourceFile, state.fragments.getHits() + state.fragments.getMisses(),
+                    state.fragments.getMisses(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            state.fragments.retainUsed();
+            state.cu = cu;
+            return update;
+        }
+    }
+
+    //Only outputs of files translated by this run are deleted, so a stray .ari next to an unrelated file survives
+    private Path remove(Path sourceFile) throws IOException {
+        if (files.remove(sourceFile) == null) {
+            return null;
+        }
+        Path output = textGenerator.getOutputFile(sourceFile.toFile()).toPath();
+        return Files.deleteIfExists(output) ? output : null;
+    }
+
+    private void updateAll(ForkJoinPool pool, Collection<Path> sources) throws InterruptedException {
+        try {
+            pool.submit(() -> sources.parallelStream().forEach(this::updateAndReport)).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Translation failed", e.getCause());
+        }
+    }
+
+    private void updateAndReport(Path sourceFile) {
+        try {
+            Path absolute = sourceFile.toAbsolutePath().normalize();
+            if (!Files.isRegularFile(absolute)) {
+                Path output = remove(absolute);
+                if (output != null) {
+                    out.println("Removed " + output);
+                }
+                return;
+            }
+            Update update = update(sourceFile);
+            if (update != null) {
+                out.println("Translated " + update.source() + ": " + update.rebuiltMethods() + " of "
+                        + update.methods() + " methods rebuilt in " + update.millis() + " ms");
+            }
+        } catch (Exception | StackOverflowError e) {
+            out.println("FAILED " + sourceFile + ": " + e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    private Set<Path> watchedDirectories(List<Path> sources) throws IOException {
+        Set<Path> directories = new LinkedHashSet<>();
+        for (Path source : absolute(sources)) {
+            directories.add(source.getParent());
+        }
+        for (String input : inputs) {
+            Path path = Paths.get(input);
+            if (!SourceCollector.isGlob(input) && Files.isDirectory(path)) {
+                try (Stream<Path> tree = Files.walk(path)) {
+                    tree.filter(Files::isDirectory)
+                            .forEach(directory -> directories.add(directory.toAbsolutePath().normalize()));
+                }
+            }
+        }
+        return directories;
+    }
+
+    private void register(WatchService watcher, Path directory, Set<Path> watched) throws IOException {
+        if (watched.add(directory)) {
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        }
+    }
+
+    //Records the java files touched by the events of a key, and starts watching newly created directories
+    private void collectChanges(WatchService watcher, WatchKey key, Set<Path> changed, Set<Path> watched)
+            throws IOException {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed.addAll(absolute(collector.collect(inputs)));
+                continue;
+            }
+            Path child = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child)) {
+                register(watcher, child, watched);
+            } else if (child.toString().endsWith(".java")) {
+                changed.add(child);
+            }
+        }
+        key.reset();
+    }
+
+    private static List<Path> absolute(List<Path> paths) {
+        return paths.stream().map(path -> path.toAbsolutePath().normalize()).toList();
+    }
+
+    /**
+     * Outcome of re-translating one file
+     * @param source the translated file
+     * @param methods number of methods in the file
+     * @param rebuiltMethods number of methods whose branches had to be built again
+     * @param millis time taken to translate and write the file
+     */
+    public record Update(Path source, int methods, int rebuiltMethods, long millis) {}
+
+    //Parsed state of a watched file, kept between changes
+    private class FileState {
+        private final MemoryFragmentCache fragments = new MemoryFragmentCache(cache);
+        private final Translator translator = new Translator(
+                new ASTTransformer(ASTNodeFactory.interning(symbols), fragments),
+                new ConstantFolder(ASTNodeFactory.interning(symbols)), textGenerator);
+        private CompilationUnit cu;
+    }
+}
@@ -22,6 +22,15 @@ public interface ASTNode {
      */
     String getType();
 
+    /**
+     * Retrieves the type of this AST node as a symbol id, allowing type checks to compare ints instead of strings.
+     *
+     * @return the SymbolTable constant for a well-known type, otherwise an implementation specific id
+     */
+    default int getTypeId() {
+        return SymbolTable.wellKnownId(getType());
+    }
+
     /**
      * Sets the type of this AST node.
      *
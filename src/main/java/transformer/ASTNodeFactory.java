@@ -0,0 +1,71 @@
+package transformer;
+
+/**
+ * Creates the nodes of an LCTRS abstract syntax tree, allowing transformers to build trees of any ASTNode implementation
+ */
+public interface ASTNodeFactory {
+
+    /**
+     * Factory creating a separate DefaultASTNode object for every node
+     */
+    ASTNodeFactory DEFAULT = DefaultASTNode::new;
+
+    /**
+     * Returns a factory creating DefaultASTNode objects whose types, and whose values when they are sorts, operators or
+     * identifiers, are the shared copies held by a symbol table. Literals, pruned counts and printed call arguments are
+     * kept as they are, so a table shared by a long batch or watch session only grows with the names in the sources.
+     * @param symbols symbol table of the translation session
+     * @return the interning factory
+     */
+    static ASTNodeFactory interning(SymbolTable symbols) {
+        return (type, value) -> new DefaultASTNode(symbols.canonical(type),
+                isSymbol(type, value) ? symbols.canonical(value) : value);
+    }
+
+    /**
+     * Creates a node with a type and value
+     * @param type Type of the node
+     * @param value Value of the node (can be null)
+     * @return the new node, without children
+     */
+    ASTNode create(String type, String value);
+
+    /**
+     * Creates a node with just a type
+     * @param type Type of the node
+     * @return the new node, without children
+     */
+    default ASTNode create(String type) {
+        return create(type, null);
+    }
+
+    /**
+     * Returns whether nodes may be created from several threads at once, allowing methods to be translated in
+     * parallel. Factories are expected to be thread-safe, implementations that are not must override this.
+     * @return true if create can be called concurrently
+     */
+    default boolean isThreadSafe() {
+        return true;
+    }
+
+    //Parameter nodes hold both parameter names and printed call arguments, of which only plain names are symbols
+    private static boolean isSymbol(String type, String value) {
+        return switch (SymbolTable.wellKnownId(type)) {
+            case SymbolTable.VALUE, SymbolTable.PRUNED -> false;
+            case SymbolTable.PARAMETER -> isIdentifier(value);
+            default -> true;
+        };
+    }
+
+    private static boolean isIdentifier(String value) {
+        if (value == null || value.isEmpty() || !Character.isJavaIdentifierStart(value.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < value.length(); i++) {
+            if (!Character.isJavaIdentifierPart(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -2,21 +2,69 @@ package transformer;
 
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Transforms an abstract syntax tree from a java input to the syntax of a logically constrained term rewriting system (LCTRS)
  */
 public class ASTTransformer implements TreeTransformer {
+    private final ASTNodeFactory nodeFactory;
+    private final FragmentCache cache;
+    private final Set<String> entries;
 
     /**
      * Default constructor with no input
      */
-    public ASTTransformer() {}
+    public ASTTransformer() {
+        this(ASTNodeFactory.DEFAULT);
+    }
+
+    /**
+     * Initialise with the factory used to create nodes, e.g. an interning factory for programs that repeat many names
+     * @param nodeFactory factory for every node of the transformed AST
+     */
+    public ASTTransformer(ASTNodeFactory nodeFactory) {
+        this(nodeFactory, null);
+    }
+
+    /**
+     * Initialise with the factory used to create nodes and a cache of previously translated methods
+     * @param nodeFactory factory for every node of the transformed AST
+     * @param cache cache consulted before building each method's branches (can be null)
+     */
+    public ASTTransformer(ASTNodeFactory nodeFactory, FragmentCache cache) {
+        this(nodeFactory, cache, null);
+    }
+
+    /**
+     * Initialise with the factory used to create nodes, a cache of previously translated methods and the entry points
+     * to translate from
+     * @param nodeFactory factory for every node of the transformed AST
+     * @param cache cache consulted before building each method's branches (can be null)
+     * @param entries names of the methods whose call graph is translated, or null to translate every method
+     */
+    public ASTTransformer(ASTNodeFactory nodeFactory, FragmentCache cache, Set<String> entries) {
+        this.nodeFactory = nodeFactory;
+        this.cache = cache;
+        this.entries = entries;
+    }
+
+    /**
+     * Returns the factory every node of the transformed AST is created by
+     * @return the node factory
+     */
+    @Override
+    public ASTNodeFactory getNodeFactory() {
+        return nodeFactory;
+    }
 
     /**
      * Takes the root node of an abstract syntax tree from javaparser as input and transforms it into one representing an LCTRS
@@ -25,64 +73,151 @@ public class ASTTransformer implements TreeTransformer {
      */
     @Override
     public ASTNode transformTree(CompilationUnit cu) {
-        ASTNode newRoot = new DefaultASTNode("Program");
-        newRoot.addChild(defineTheory(cu));
-        newRoot.addChild(getFunctionDeclarations(cu));
-        newRoot.addChild(getFunctionRules(cu));
+        TranslationEvents.Transform event = new TranslationEvents.Transform();
+        event.begin();
+        ProgramCollector collector = new ProgramCollector(nodeFactory, cache);
+        //Methods are listed before any is built: building them in parallel and following calls from the entries both
+        //need the whole list. findAll walks the tree iteratively, where a visitor would recurse as deep as the source
+        //is nested and overflow on the long else-if chains the rule builder handles.
+        List<MethodDeclaration> methods = cu.findAll(MethodDeclaration.class);
+        if (entries == null) {
+            collector.addAll(methods);
+        } else {
+            collector.addReachable(methods, entries);
+        }
+        ASTNode newRoot = nodeFactory.create("Program");
+        newRoot.addChild(nodeFactory.create("Theory", collector.theory.getName()));
+        newRoot.addChild(getFunctionDeclarations(collector));
+        newRoot.addChild(getFunctionRules(collector));
+        if (event.shouldCommit()) {
+            event.methods = methods.size();
+            event.functions = collector.functionRules.size();
+            event.commit();
+        }
         return newRoot;
     }
 
-    //Identifies which SMT theory is required for the LCTRS and creates a node to represent it
-    private ASTNode defineTheory (CompilationUnit cu) {
-        Map<String, Boolean> presentTypes = new HashMap<>();
-        presentTypes.put("Ints", false);
-        presentTypes.put("Reals", false);
-        presentTypes.put("Chars", false);
-        cu.findAll(com.github.javaparser.ast.type.PrimitiveType.class).forEach(type -> {
-            switch (type.asString()) {
-                case "int", "long", "short", "byte" -> presentTypes.put("Ints", true);
-                case "double", "float" -> presentTypes.put("Reals", true);
-                case "char" -> presentTypes.put("Chars", true);
+    private ASTNode getFunctionDeclarations (ProgramCollector collector) {
+        ASTNode functionNode = nodeFactory.create("Functions");
+        functionNode.setChildren(collector.functions);
+        return functionNode;
+    }
+
+    private ASTNode getFunctionRules (ProgramCollector collector) {
+        ASTNode rulesNode = nodeFactory.create("Rules");
+        rulesNode.setChildren(collector.functionRules);
+        return rulesNode;
+    }
+
+    //Builds (or fetches from the cache) the declaration and rule branches of the methods, in parallel when there are
+    //enough of them and the node factory and cache are thread-safe, and adds them in source order. Each function's
+    //rule branch is given the cheapest theory covering the sorts it uses, and the program's theory is the join of
+    //these, so fields and types outside the translated methods are ignored.
+    private static class ProgramCollector {
+        private static final int PARALLEL_THRESHOLD = 32;
+
+        private final ASTNodeFactory nodeFactory;
+        private final FragmentCache cache;
+        private final DeclarationBuilder functionBuilder;
+        private final RuleBuilder ruleBuilder;
+        private final boolean parallel;
+        private final List<ASTNode> functions = new ArrayList<>();
+        private final List<ASTNode> functionRules = new ArrayList<>();
+        private Theory theory = Theory.CORE;
+
+        private ProgramCollector(ASTNodeFactory nodeFactory, FragmentCache cache) {
+            this.nodeFactory = nodeFactory;
+            this.cache = cache;
+            functionBuilder = new FunctionDeclarationBuilder(nodeFactory);
+            ruleBuilder = new FunctionRuleBuilder(nodeFactory);
+            parallel = nodeFactory.isThreadSafe() && (cache == null || cache.isThreadSafe());
+        }
+
+        private void addAll(List<MethodDeclaration> methods) {
+            for (MethodFragment fragment : fragmentsOf(methods)) {
+                add(fragment);
             }
-        });
-        ASTNode theory = new DefaultASTNode("Theory");
-        if (presentTypes.get("Chars")) {
-            theory.setValue("FixedSizeBitVectors");
-        } else if (presentTypes.get("Ints") && !presentTypes.get("Reals")) {
-            theory.setValue("Ints");
-        } else if (!presentTypes.get("Ints") && presentTypes.get("Reals")) {
-            theory.setValue("Reals");
-        } else if (presentTypes.get("Ints") && presentTypes.get("Reals")) {
-            theory.setValue("Reals_Ints");
-        } else {
-            theory.setValue("Core");
         }
-        return theory;
-    }
 
-    private ASTNode getFunctionDeclarations (CompilationUnit cu) {
-        List<ASTNode> functions = new ArrayList<>();
-        List<MethodDeclaration> methods = cu.findAll(MethodDeclaration.class);
-        DeclarationBuilder functionBuilder = new FunctionDeclarationBuilder();
-        for (MethodDeclaration method : methods) {
-            ASTNode function = functionBuilder.functionDeclaration(method);
-            functions.add(function);
+        //Translates the methods called, directly or indirectly, from the entries one level of the call graph at a
+        //time, then adds them in source order. Call sites are taken from the java source of each method rather than
+        //its rules, where calls nested in guards and expressions are not kept as Function nodes. Calls are matched by
+        //name only, so every overload of a called method is kept. An entry naming no method fails the translation
+        //instead of quietly leaving its part of the program out.
+        private void addReachable(List<MethodDeclaration> methods, Set<String> entries) {
+            Map<String, List<MethodDeclaration>> methodsByName = new HashMap<>();
+            for (MethodDeclaration method : methods) {
+                methodsByName.computeIfAbsent(method.getNameAsString(), name -> new ArrayList<>()).add(method);
+            }
+            List<String> unknown = entries.stream().filter(name -> !methodsByName.containsKey(name)).sorted().toList();
+            if (!unknown.isEmpty()) {
+                throw new IllegalArgumentException("No method named " + String.join(", ", unknown)
+                        + " to translate from");
+            }
+            Map<MethodDeclaration, MethodFragment> reachable = new IdentityHashMap<>();
+            Set<String> seen = new HashSet<>(entries);
+            List<String> frontier = new ArrayList<>(entries);
+            while (!frontier.isEmpty()) {
+                List<MethodDeclaration> level = new ArrayList<>();
+                for (String name : frontier) {
+                    level.addAll(methodsByName.getOrDefault(name, List.of()));
+                }
+                List<MethodFragment> fragments = fragmentsOf(level);
+                frontier = new ArrayList<>();
+                for (int i = 0; i < level.size(); i++) {
+                    reachable.put(level.get(i), fragments.get(i));
+                    for (String callee : calleesOf(level.get(i))) {
+                        if (seen.add(callee)) {
+                            frontier.add(callee);
+                        }
+                    }
+                }
+            }
+            for (MethodDeclaration method : methods) {
+                MethodFragment fragment = reachable.get(method);
+                if (fragment != null) {
+                    add(fragment);
+                }
+            }
         }
-        ASTNode functionNode = new DefaultASTNode("Functions");
-        functionNode.setChildren(functions);
-        return functionNode;
-    }
 
-    private ASTNode getFunctionRules (CompilationUnit cu) {
-        List<ASTNode> functionRules = new ArrayList<>();
-        List<MethodDeclaration> methods = cu.findAll(MethodDeclaration.class);
-        RuleBuilder ruleBuilder = new FunctionRuleBuilder();
-        for (MethodDeclaration method : methods) {
-            ASTNode functionRule = ruleBuilder.buildRule(method);
-            functionRules.add(functionRule);
+        //The builders keep no state between methods, so methods can be built on any number of threads. The returned
+        //list keeps the order of the methods whichever thread built each fragment.
+        private List<MethodFragment> fragmentsOf(List<MethodDeclaration> methods) {
+            if (parallel && methods.size() >= PARALLEL_THRESHOLD) {
+                return methods.parallelStream().map(this::fragmentOf).toList();
+            }
+            return methods.stream().map(this::fragmentOf).toList();
+        }
+
+        private static List<String> calleesOf(MethodDeclaration method) {
+            return method.findAll(MethodCallExpr.class).stream().map(MethodCallExpr::getNameAsString).toList();
+        }
+
+        private void add(MethodFragment fragment) {
+            Theory functionTheory = Theory.ofFunction(fragment.declaration(), fragment.rule());
+            fragment.rule().addChild(nodeFactory.create("Theory", functionTheory.getName()));
+            theory = theory.join(functionTheory);
+            functions.add(fragment.declaration());
+            functionRules.add(fragment.rule());
+        }
+
+        private MethodFragment fragmentOf(MethodDeclaration method) {
+            return cache == null ? buildFragment(method) : cachedFragment(method);
+        }
+
+        private MethodFragment cachedFragment(MethodDeclaration method) {
+            String key = FragmentCache.keyOf(method);
+            MethodFragment fragment = cache.get(key, nodeFactory);
+            if (fragment == null) {
+                fragment = buildFragment(method);
+                cache.put(key, fragment);
+            }
+            return fragment;
+        }
+
+        private MethodFragment buildFragment(MethodDeclaration method) {
+            return new MethodFragment(functionBuilder.functionDeclaration(method), ruleBuilder.buildRule(method));
         }
-        ASTNode rulesNode = new DefaultASTNode("Rules");
-        rulesNode.setChildren(functionRules);
-        return rulesNode;
     }
 }
@@ -0,0 +1,267 @@
+package transformer;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Folds constant subterms of rules and guards. Integer arithmetic and comparisons on literals are evaluated, boolean
+ * connectives with a literal operand are simplified (dropping true conjuncts), guards that fold to true are removed
+ * and rules whose guard folds to false are eliminated. Integers are unbounded, as in the Ints theory, and only +, -
+ * and * are evaluated since division and remainder round differently in java and SMT-LIB, and only when the result is
+ * not negative, which SMT-LIB numerals cannot express.
+ */
+public class ConstantFolder implements TreeOptimizer {
+    private static final Term[] NO_OPERANDS = new Term[0];
+
+    private final ASTNodeFactory nodeFactory;
+
+    /**
+     * Default constructor
+     */
+    public ConstantFolder() {
+        this(ASTNodeFactory.DEFAULT);
+    }
+
+    /**
+     * Initialise with the factory used to create the nodes of folded constants
+     * @param nodeFactory factory for new Value nodes
+     */
+    public ConstantFolder(ASTNodeFactory nodeFactory) {
+        this.nodeFactory = nodeFactory;
+    }
+
+    /**
+     * Folds the rules of every function in place
+     * @param root the root node of the transformed AST
+     * @return the same root node
+     */
+    @Override
+    public ASTNode optimize(ASTNode root) {
+        for (ASTNode child : root.getChildren()) {
+            if (child.getTypeId() == SymbolTable.RULES) {
+                for (ASTNode function : child.getChildren()) {
+                    for (ASTNode rules : function.getChildren()) {
+                        if (rules.getTypeId() == SymbolTable.RULES) {
+                            optimizeRules(rules);
+                        }
+                    }
+                }
+            }
+        }
+        return root;
+    }
+
+    private void optimizeRules(ASTNode rules) {
+        List<ASTNode> kept = new ArrayList<>(rules.getChildren().size());
+        for (ASTNode rule : rules.getChildren()) {
+            if (optimizeRule(rule)) {
+                kept.add(rule);
+            }
+        }
+        if (kept.size() != rules.getChildren().size()) {
+            rules.setChildren(kept);
+        }
+    }
+
+    //Folds the right-hand side and guard of a rule, returning false if the guard can never hold
+    private boolean optimizeRule(ASTNode rule) {
+        List<ASTNode> children = new ArrayList<>(rule.getChildren().size());
+        List<ASTNode> run = new ArrayList<>();
+        for (ASTNode child : rule.getChildren()) {
+            if (isTermNode(child)) {
+                run.add(child);
+                continue;
+            }
+            children.addAll(foldRun(run));
+            run.clear();
+            if (child.getTypeId() == SymbolTable.GUARD) {
+                List<ASTNode> condition = fold(child.getChildren());
+                Boolean constant = condition.size() == 1 ? booleanOf(condition.getFirst()) : null;
+                if (Boolean.FALSE.equals(constant)) {
+                    return false;
+                } else if (!Boolean.TRUE.equals(constant)) {
+                    child.setChildren(condition);
+                    children.add(child);
+                }
+            } else {
+                children.add(child);
+            }
+        }
+        children.addAll(foldRun(run));
+        rule.setChildren(children);
+        return true;
+    }
+
+    //Folds every run of operators, variables and values, keeping other nodes (e.g. function calls) in place
+    private List<ASTNode> fold(List<ASTNode> nodes) {
+        List<ASTNode> folded = new ArrayList<>(nodes.size());
+        List<ASTNode> run = new ArrayList<>();
+        for (ASTNode node : nodes) {
+            if (isTermNode(node)) {
+                run.add(node);
+            } else {
+                folded.addAll(foldRun(run));
+                run.clear();
+                folded.add(node);
+            }
+        }
+        folded.addAll(foldRun(run));
+        return folded;
+    }
+
+    //Rebuilds the terms of a prefix run from right to left, folding each operator as soon as its operands are known.
+    //Runs that are not a sequence of complete terms are left as they are.
+    private List<ASTNode> foldRun(List<ASTNode> run) {
+        Deque<Term> terms = new ArrayDeque<>();
+        for (int i = run.size() - 1; i >= 0; i--) {
+            ASTNode node = run.get(i);
+            if (node.getTypeId() == SymbolTable.OPERATOR) {
+                int arity = arityOf(node.getValue());
+                if (terms.size() < arity) {
+                    return run;
+                }
+                Term[] operands = new Term[arity];
+                for (int j = 0; j < arity; j++) {
+                    operands[j] = terms.pop();
+                }
+                terms.push(fold(node, operands));
+            } else {
+                terms.push(new Term(node, NO_OPERANDS, constantOf(node)));
+            }
+        }
+        List<ASTNode> folded = new ArrayList<>(run.size());
+        while (!terms.isEmpty()) {
+            emit(terms.pop(), folded);
+        }
+        return folded;
+    }
+
+    private Term fold(ASTNode operator, Term[] operands) {
+        Object left = operands[0].constant();
+        Object right = operands.length > 1 ? operands[1].constant() : null;
+        switch (operator.getValue()) {
+            case "+", "-", "*" -> {
+                if (left instanceof BigInteger a && right instanceof BigInteger b) {
+                    BigInteger result = switch (operator.getValue()) {
+                        case "+" -> a.add(b);
+                        case "-" -> a.subtract(b);
+                        default -> a.multiply(b);
+                    };
+                    //SMT-LIB numerals are never negative, and a unary minus cannot be written in the flat prefix
+                    //lists without changing the arity of "-", so negative results stay unfolded
+                    if (result.signum() >= 0) {
+                        return constant(result);
+                    }
+                }
+            }
+            case ">", "<", ">=", "<=" -> {
+                if (left instanceof BigInteger a && right instanceof BigInteger b) {
+                    int comparison = a.compareTo(b);
+                    return constant(switch (operator.getValue()) {
+                        case ">" -> comparison > 0;
+                        case "<" -> comparison < 0;
+                        case ">=" -> comparison >= 0;
+                        default -> comparison <= 0;
+                    });
+                }
+            }
+            case "==", "!=" -> {
+                if (left != null && right != null && left.getClass() == right.getClass()) {
+                    return constant(left.equals(right) == operator.getValue().equals("=="));
+                }
+            }
+            case "and", "&&" -> {
+                if (Boolean.FALSE.equals(left) || Boolean.TRUE.equals(right)) {
+                    return operands[0];
+                } else if (Boolean.TRUE.equals(left) || Boolean.FALSE.equals(right)) {
+                    return operands[1];
+                }
+            }
+            case "or", "||" -> {
+                if (Boolean.TRUE.equals(left) || Boolean.FALSE.equals(right)) {
+                    return operands[0];
+                } else if (Boolean.FALSE.equals(left) || Boolean.TRUE.equals(right)) {
+                    return operands[1];
+                }
+            }
+            case "not", "!" -> {
+                if (left instanceof Boolean value) {
+                    return constant(!value);
+                }
+            }
+            default -> {}
+        }
+        return new Term(operator, operands, null);
+    }
+
+    private Term constant(Object value) {
+        return new Term(nodeFactory.create("Value", value.toString()), NO_OPERANDS, value);
+    }
+
+    private static void emit(Term term, List<ASTNode> out) {
+        Deque<Term> pending = new ArrayDeque<>();
+        pending.push(term);
+        while (!pending.isEmpty()) {
+            Term next = pending.pop();
+            out.add(next.node());
+            for (int i = next.operands().length - 1; i >= 0; i--) {
+                pending.push(next.operands()[i]);
+            }
+        }
+    }
+
+    private static boolean isTermNode(ASTNode node) {
+        int type = node.getTypeId();
+        return type == SymbolTable.OPERATOR || type == SymbolTable.VARIABLE || type == SymbolTable.VALUE;
+    }
+
+    private static int arityOf(String operator) {
+        return operator.equals("not") || operator.equals("!") ? 1 : 2;
+    }
+
+    //Reads decimal int and long literals and booleans. Other literals (reals, chars, octal or hex) are never folded.
+    private static Object constantOf(ASTNode node) {
+        if (node.getTypeId() != SymbolTable.VALUE) {
+            return null;
+        }
+        Boolean bool = booleanOf(node);
+        if (bool != null) {
+            return bool;
+        }
+        String digits = node.getValue().replace("_", "");
+        if (digits.endsWith("L") || digits.endsWith("l")) {
+            digits = digits.substring(0, digits.length() - 1);
+        }
+        if (digits.isEmpty() || (digits.length() > 1 && digits.charAt(0) == '0')) {
+            return null;
+        }
+        for (int i = 0; i < digits.length(); i++) {
+            if (!Character.isDigit(digits.charAt(i))) {
+                return null;
+            }
+        }
+        return new BigInteger(digits);
+    }
+
+    private static Boolean booleanOf(ASTNode node) {
+        if (node.getTypeId() == SymbolTable.VALUE) {
+            if ("true".equals(node.getValue())) {
+                return true;
+            } else if ("false".equals(node.getValue())) {
+                return false;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A term rebuilt from a prefix run
+     * @param node the operator, variable or value node at the head of the term
+     * @param operands operands of an operator, empty otherwise
+     * @param constant value of the term if it is a literal (BigInteger or Boolean), otherwise null
+     */
+    private record Term(ASTNode node, Term[] operands, Object constant) {}
+}
@@ -0,0 +1,61 @@
+package transformer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Runs work that recurses as deep as the nesting of a source, such as JavaParser's recursive descent parser and its
+ * pretty printer, on a thread with a large stack when the calling thread's stack turns out to be too small. Sources of
+ * ordinary depth pay nothing; a default 512K stack overflows on an else-if chain of about a thousand branches.
+ */
+final class DeepStack {
+
+    /**
+     * Stack size of the retry thread. The stack is only reserved as address space, and pages are committed as the work
+     * actually uses them.
+     */
+    static final long STACK_SIZE = 1L << 30;
+
+    private DeepStack() {}
+
+    /**
+     * Work that can be run again from the start
+     * @param <T> type of the result
+     */
+    @FunctionalInterface
+    interface Task<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * Runs the task on the calling thread, and once more on a thread with a STACK_SIZE stack if it overflows
+     * @param name name of the retry thread
+     * @param task work to run, which must not rely on state left behind by the overflowed attempt
+     * @param <T> type of the result
+     * @return the result of the task
+     * @throws IOException if the task fails with one
+     */
+    static <T> T call(String name, Task<T> task) throws IOException {
+        try {
+            return task.run();
+        } catch (StackOverflowError e) {
+            FutureTask<T> retry = new FutureTask<>(task::run);
+            new Thread(null, retry, name, STACK_SIZE).start();
+            try {
+                return retry.get();
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + name);
+            } catch (ExecutionException failure) {
+                switch (failure.getCause()) {
+                    case IOException io -> throw io;
+                    case RuntimeException runtime -> throw runtime;
+                    case Error error -> throw error;
+                    default -> throw new IllegalStateException(failure.getCause());
+                }
+            }
+        }
+    }
+}
@@ -8,6 +8,7 @@ import java.util.List;
  */
 public class DefaultASTNode implements ASTNode{
     private String type;
+    private int typeId;
     private String value;
     private List<ASTNode> children;
 
@@ -18,6 +19,7 @@ public class DefaultASTNode implements ASTNode{
      */
     public DefaultASTNode (String type, String value) {
         this.type = type;
+        this.typeId = SymbolTable.wellKnownId(type);
         this.value = value;
         this.children = new ArrayList<>();
     }
@@ -52,6 +54,16 @@ public class DefaultASTNode implements ASTNode{
      */
     public void setType (String type) {
         this.type = type;
+        this.typeId = SymbolTable.wellKnownId(type);
+    }
+
+    /**
+     * Returns the type of the node as a symbol id
+     * @return SymbolTable constant of the type, or SymbolTable.NONE if it is not well-known
+     */
+    @Override
+    public int getTypeId () {
+        return typeId;
     }
 
     /**
@@ -0,0 +1,198 @@
+package transformer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Fragment cache kept on disk as one file per method key. Entries are written to a temporary file and atomically moved
+ * into place, so readers in other threads or processes never see partial entries. Every hit refreshes the entry's
+ * modification time, and once the cache grows beyond its size limit the least recently used entries are evicted under
+ * a file lock shared by all processes using the directory. The branches of a fragment are stored in the TreeFormat
+ * binary format.
+ */
+public class DiskFragmentCache implements FragmentCache {
+    private static final int MAGIC = 0x4C435447;
+    private static final String SUFFIX = ".frag";
+    private static final String LOCK_FILE = ".lock";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final AtomicLong estimatedBytes;
+
+    /**
+     * Opens or creates a cache directory
+     * @param directory directory holding the cache entries
+     * @param maxBytes size the cache is kept under by evicting least recently used entries
+     * @throws IOException if the directory cannot be created or read
+     */
+    public DiskFragmentCache(Path directory, long maxBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        this.estimatedBytes = new AtomicLong(listEntries().stream().mapToLong(Entry::size).sum());
+    }
+
+    /**
+     * Looks up the fragment stored for a key
+     * @param key key computed by keyOf
+     * @param nodeFactory factory creating the nodes of the returned fragment
+     * @return a fragment owned by the caller, or null if the key is not cached or its entry is unreadable
+     */
+    @Override
+    public MethodFragment get(String key, ASTNodeFactory nodeFactory) {
+        Path entry = entryPath(key);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(entry);
+        } catch (IOException e) {
+            return null;
+        }
+        try {
+            MethodFragment fragment = decode(bytes, nodeFactory);
+            touch(entry);
+            return fragment;
+        } catch (IOException e) {
+            deleteQuietly(entry);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the fragment of a method, evicting old entries if the cache grows beyond its limit
+     * @param key key computed by keyOf
+     * @param fragment fragment to store
+     */
+    @Override
+    public void put(String key, MethodFragment fragment) {
+        Path entry = entryPath(key);
+        try {
+            byte[] bytes = encode(fragment);
+            Files.createDirectories(entry.getParent());
+            Path temp = Files.createTempFile(entry.getParent(), key, ".tmp");
+            try {
+                Files.write(temp, bytes);
+                try {
+                    Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                deleteQuietly(temp);
+            }
+            if (estimatedBytes.addAndGet(bytes.length) > maxBytes) {
+                evict();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing cache entry " + entry, e);
+        }
+    }
+
+    /**
+     * Entries are written atomically and eviction is serialised, so the cache can be shared by any number of threads
+     * @return true
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    //Deletes least recently used entries until the cache is below 90% of its limit, holding the lock file so that
+    //processes sharing the directory do not evict at the same time
+    private synchronized void evict() throws IOException {
+        try (FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            FileLock lock = lockChannel.lock();
+            try {
+                List<Entry> entries = listEntries();
+                entries.sort(Comparator.comparing(Entry::lastUsed));
+                long total = entries.stream().mapToLong(Entry::size).sum();
+                long target = maxBytes / 10 * 9;
+                for (Entry entry : entries) {
+                    if (total <= target) {
+                        break;
+                    }
+                    deleteQuietly(entry.path());
+                    total -= entry.size();
+                }
+                estimatedBytes.set(total);
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private List<Entry> listEntries() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(SUFFIX))::iterator) {
+                try {
+                    entries.add(new Entry(file, Files.size(file), Files.getLastModifiedTime(file)));
+                } catch (NoSuchFileException e) {
+                    //removed by another process while listing
+                }
+            }
+        }
+        return entries;
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + SUFFIX);
+    }
+
+    private static void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            //evicted by another process; the fragment has already been read
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            //left for the next eviction
+        }
+    }
+
+    private static byte[] encode(MethodFragment fragment) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeBoolean(fragment.declaration() != null);
+        if (fragment.declaration() != null) {
+            out.write(TreeFormat.encode(fragment.declaration()));
+        }
+        out.write(TreeFormat.encode(fragment.rule()));
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static MethodFragment decode(byte[] bytes, ASTNodeFactory nodeFactory) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (bytes.length < 9 || in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+            throw new IOException("Not a cache entry of this version");
+        }
+        ASTNode declaration = in.get() != 0 ? TreeFormat.decode(in, nodeFactory) : null;
+        return new MethodFragment(declaration, TreeFormat.decode(in, nodeFactory));
+    }
+
+    private record Entry(Path path, long size, FileTime lastUsed) {}
+}
@@ -0,0 +1,101 @@
+package transformer;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.printer.DefaultPrettyPrinter;
+import com.github.javaparser.printer.configuration.DefaultConfigurationOption;
+import com.github.javaparser.printer.configuration.DefaultPrinterConfiguration;
+import com.github.javaparser.printer.configuration.DefaultPrinterConfiguration.ConfigOption;
+import com.github.javaparser.printer.configuration.PrinterConfiguration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Properties;
+
+/**
+ * Stores the LCTRS branches of already translated methods, so methods whose source has not changed skip rule building
+ */
+public interface FragmentCache {
+
+    /**
+     * Version of the translation output, part of every key. Increase it whenever the builders change what they produce
+     * for the same method so that stale fragments are never reused.
+     */
+    int FORMAT_VERSION = 3;
+
+    /**
+     * Version of the tool, part of every key so that fragments cached by another release are never reused. Read from
+     * the javatolctrs.properties resource the build fills in with the project version.
+     */
+    String TOOL_VERSION = loadToolVersion();
+
+    /**
+     * Looks up the fragment stored for a key
+     * @param key key computed by keyOf
+     * @param nodeFactory factory creating the nodes of the returned fragment
+     * @return a fragment owned by the caller, or null if the key is not cached
+     */
+    MethodFragment get(String key, ASTNodeFactory nodeFactory);
+
+    /**
+     * Stores the fragment of a method
+     * @param key key computed by keyOf
+     * @param fragment fragment to store
+     */
+    void put(String key, MethodFragment fragment);
+
+    /**
+     * Returns whether fragments may be looked up and stored from several threads at once, allowing methods to be
+     * translated in parallel
+     * @return true if get and put can be called concurrently
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     * Computes the content address of a method: a SHA-256 hash of the tool version and the method's source printed
+     * without comments, so formatting and comment changes do not invalidate entries
+     * @param method method to compute the key for
+     * @return the key as a hex string
+     */
+    //Prints through its own printer rather than Node.toString, which swaps the configuration of a printer stored in
+    //the compilation unit and so cannot be called for several methods of one file at once. The printer recurses as
+    //deep as the method is nested, so deep methods are printed through DeepStack like they were parsed.
+    static String keyOf(MethodDeclaration method) {
+        PrinterConfiguration configuration = new DefaultPrinterConfiguration()
+                .removeOption(new DefaultConfigurationOption(ConfigOption.PRINT_COMMENTS))
+                .removeOption(new DefaultConfigurationOption(ConfigOption.PRINT_JAVADOC));
+        String normalised;
+        try {
+            normalised = DeepStack.call("javatolctrs-deep-print",
+                    () -> new DefaultPrettyPrinter(configuration).print(method));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((TOOL_VERSION + "/" + FORMAT_VERSION + "\n").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(normalised.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String loadToolVersion() {
+        try (InputStream in = FragmentCache.class.getResourceAsStream("/javatolctrs.properties")) {
+            if (in == null) {
+                throw new IllegalStateException("Missing resource javatolctrs.properties");
+            }
+            Properties properties = new Properties();
+            properties.load(in);
+            return properties.getProperty("version");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read javatolctrs.properties", e);
+        }
+    }
+}
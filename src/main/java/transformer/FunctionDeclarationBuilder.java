@@ -8,14 +8,26 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Builds function declaration branches for LCTRS ASTs
+ * Builds function declaration branches for LCTRS ASTs. The builder keeps no state between methods, so one instance can
+ * build the declarations of many methods on different threads at once, provided its node factory is thread-safe.
  */
 public class FunctionDeclarationBuilder implements DeclarationBuilder{
+    private final ASTNodeFactory nodeFactory;
 
     /**
      * Default constructor
      */
-    public FunctionDeclarationBuilder() {};
+    public FunctionDeclarationBuilder() {
+        this(ASTNodeFactory.DEFAULT);
+    }
+
+    /**
+     * Initialise with the factory used to create nodes
+     * @param nodeFactory factory for the nodes of the declaration branches
+     */
+    public FunctionDeclarationBuilder(ASTNodeFactory nodeFactory) {
+        this.nodeFactory = nodeFactory;
+    }
 
     /**
      * Builds function declaration branches of an AST
@@ -40,7 +52,7 @@ public class FunctionDeclarationBuilder implements DeclarationBuilder{
 
     private ASTNode getFunctionName (MethodDeclaration method) {
         String methodName = method.getNameAsString();
-        return new DefaultASTNode("Name", methodName);
+        return nodeFactory.create("Name", methodName);
     }
 
     private List<ASTNode> getParameterTypes (MethodDeclaration method) {
@@ -48,14 +60,14 @@ public class FunctionDeclarationBuilder implements DeclarationBuilder{
         NodeList<Parameter> parameters = method.getParameters();
         for (Parameter param : parameters) {
             String smtType = mapToSMTType(param.getTypeAsString());
-            parameterTypeList.add(new DefaultASTNode("ParameterType", smtType));
+            parameterTypeList.add(nodeFactory.create("ParameterType", smtType));
         }
         return parameterTypeList;
     }
 
     private ASTNode getReturnType (MethodDeclaration method) {
         String smtType = mapToSMTType(method.getTypeAsString());
-        return new DefaultASTNode("ReturnType", smtType);
+        return nodeFactory.create("ReturnType", smtType);
     }
 
     private String mapToSMTType(String javaType) {
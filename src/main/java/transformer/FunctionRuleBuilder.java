@@ -1,26 +1,50 @@
 package transformer;
 
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.Parameter;
 import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.body.TypeDeclaration;
 import com.github.javaparser.ast.expr.*;
 import com.github.javaparser.ast.stmt.BlockStmt;
 import com.github.javaparser.ast.stmt.IfStmt;
 import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.printer.DefaultPrettyPrinter;
+import com.github.javaparser.printer.Printer;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Builds rule statements for LCTRS ASTs
+ * Builds rule statements for LCTRS ASTs. The builder keeps no state between methods, so one instance can build the
+ * rules of many methods on different threads at once, provided its node factory is thread-safe.
  */
 public class FunctionRuleBuilder implements RuleBuilder {
+    //Node.toString stores a printer in the compilation unit on first use, which is not safe while other threads
+    //translate methods of the same file. A standalone printer is, as it creates a new visitor for every call.
+    private static final Printer PRINTER = new DefaultPrettyPrinter();
+
+    private final ASTNodeFactory nodeFactory;
 
     /**
      * Default constructor
      */
-    public FunctionRuleBuilder () {}
+    public FunctionRuleBuilder () {
+        this(ASTNodeFactory.DEFAULT);
+    }
+
+    /**
+     * Initialise with the factory used to create nodes
+     * @param nodeFactory factory for the nodes of the rule branches
+     */
+    public FunctionRuleBuilder (ASTNodeFactory nodeFactory) {
+        this.nodeFactory = nodeFactory;
+    }
 
     /**
      * Builds rule statement branches of LCTRS AST
@@ -28,32 +52,58 @@ public class FunctionRuleBuilder implements RuleBuilder {
      * @return node of function name with statements as children
      */
     public ASTNode buildRule (MethodDeclaration method) {
-        ASTNode function = new DefaultASTNode("Name", method.getNameAsString());
+        TranslationEvents.BuildRule event = new TranslationEvents.BuildRule();
+        event.begin();
+        ASTNode function = nodeFactory.create("Name", method.getNameAsString());
         for (ASTNode param : getParameterNames(method)) {
             function.addChild(param);
         }
-        ASTNode rules = new DefaultASTNode("Rules");
+        ASTNode rules = nodeFactory.create("Rules");
         function.addChild(rules);
-        rules.setChildren(parseMethodExpressions(method));
+        List<ASTNode> ruleNodes = new ArrayList<>();
+        int pruned = parseMethodExpressions(method, ruleNodes);
+        rules.setChildren(ruleNodes);
+        if (pruned > 0) {
+            function.addChild(nodeFactory.create("Pruned", String.valueOf(pruned)));
+        }
+        if (event.shouldCommit()) {
+            event.method = method.getNameAsString();
+            event.type = getDeclaringType(method);
+            event.rules = ruleNodes.size();
+            event.nodes = TranslationStats.countNodes(function);
+            event.pruned = pruned;
+            event.commit();
+        }
         return function;
     }
 
+    //Name of the innermost type declaration around the method, or null if it is not inside one
+    private static String getDeclaringType(MethodDeclaration method) {
+        for (Node node = method.getParentNode().orElse(null); node != null; node = node.getParentNode().orElse(null)) {
+            if (node instanceof TypeDeclaration<?> type) {
+                return type.getNameAsString();
+            }
+        }
+        return null;
+    }
+
     private List<ASTNode> getParameterNames (MethodDeclaration method) {
         List<ASTNode> parameterNameList = new ArrayList<>();
         NodeList<Parameter> parameters = method.getParameters();
         for (Parameter param : parameters) {
             String name = param.getNameAsString();
-            parameterNameList.add(new DefaultASTNode("Parameter", name));
+            parameterNameList.add(nodeFactory.create("Parameter", name));
         }
         return parameterNameList;
     }
 
-    private List<ASTNode> parseMethodExpressions(MethodDeclaration method) {
-        List<ASTNode> expressionNodes = new ArrayList<>();
+    //Adds the rules of every statement of the method body, returning the number of unreachable branches left out
+    private int parseMethodExpressions(MethodDeclaration method, List<ASTNode> expressionNodes) {
+        int pruned = 0;
         if (method.getBody().isPresent()) {
             BlockStmt body = method.getBody().get();
             for (Statement stmt : body.getStatements()) {
-                ASTNode ruleNode = new DefaultASTNode("Rule");
+                ASTNode ruleNode = nodeFactory.create("Rule");
                 if (stmt.isExpressionStmt()) {
                     Expression expr = stmt.asExpressionStmt().getExpression();
                     if (expr.isVariableDeclarationExpr()) {
@@ -66,46 +116,61 @@ public class FunctionRuleBuilder implements RuleBuilder {
                     handleExpressionStatement(ruleNode, stmt.asReturnStmt().getExpression().get());
                     expressionNodes.add(ruleNode);
                 } else if (stmt.isIfStmt()) {
-                    expressionNodes.addAll(handleIfStatement(stmt.asIfStmt()));
+                    pruned += handleIfStatement(stmt.asIfStmt(), expressionNodes, getVariableSorts(method));
                 }
             }
         }
-        return expressionNodes;
+        return pruned;
+    }
+
+    //Sorts of the parameters whose ranges the guard analysis can reason about
+    private Map<String, String> getVariableSorts(MethodDeclaration method) {
+        Map<String, String> sorts = new HashMap<>();
+        for (Parameter param : method.getParameters()) {
+            String sort = getTypeString(param.getType().asString());
+            if (sort.equals("Int") || sort.equals("Real")) {
+                sorts.put(param.getNameAsString(), sort);
+            }
+        }
+        return sorts;
     }
 
-    private List<ASTNode> parseExpression (Expression expression) {
-        List<ASTNode> nodes = new ArrayList<>();
-        if (expression.isBinaryExpr()) {
-            BinaryExpr binaryExpr = expression.asBinaryExpr();
-            nodes.add(new DefaultASTNode("Operator", binaryExpr.getOperator().asString()));
-            nodes.addAll(parseExpression(binaryExpr.getLeft()));
-            nodes.addAll(parseExpression(binaryExpr.getRight()));
-        } else if (expression.isNameExpr()) {
-            nodes.add(new DefaultASTNode("Variable", expression.asNameExpr().getNameAsString()));
-        } else if (expression.isLiteralExpr()) {
-            nodes.add(new DefaultASTNode("Value", expression.toString()));
+    //Flattens an expression into prefix order. The operands are pushed onto an explicit stack (right first, so the
+    //left one is emitted first) and every node is appended to the same list, so long chains like a + b + c + ...
+    //take linear time and constant stack depth.
+    private void parseExpression (Expression expression, List<ASTNode> nodes) {
+        Deque<Expression> pending = new ArrayDeque<>();
+        pending.push(expression);
+        while (!pending.isEmpty()) {
+            Expression next = pending.pop();
+            if (next.isBinaryExpr()) {
+                BinaryExpr binaryExpr = next.asBinaryExpr();
+                nodes.add(nodeFactory.create("Operator", binaryExpr.getOperator().asString()));
+                pending.push(binaryExpr.getRight());
+                pending.push(binaryExpr.getLeft());
+            } else if (next.isNameExpr()) {
+                nodes.add(nodeFactory.create("Variable", next.asNameExpr().getNameAsString()));
+            } else if (next.isLiteralExpr()) {
+                nodes.add(nodeFactory.create("Value", literalText(next.asLiteralExpr())));
+            }
         }
-        return nodes;
     }
 
     private void handleMethodCall(ASTNode ruleNode, MethodCallExpr callExpr, Expression guardExpr) {
-        ruleNode.addChild(new DefaultASTNode("Function", callExpr.getNameAsString()));
+        ruleNode.addChild(nodeFactory.create("Function", callExpr.getNameAsString()));
         for (Expression arg : callExpr.getArguments()) {
-            ruleNode.addChild(new DefaultASTNode("Parameter", arg.toString()));
+            ruleNode.addChild(nodeFactory.create("Parameter", PRINTER.print(arg)));
         }
         if (guardExpr != null) {
-            ASTNode guardNode = new DefaultASTNode("Guard", ":guard");
-            guardNode.setChildren(parseConditional(guardExpr));
-            ruleNode.addChild(guardNode);
+            ruleNode.addChild(createGuard(":guard", guardExpr));
         }
     }
 
     private void addExpressionAndGuard(ASTNode ruleNode, Expression expr, String guardType) {
-        List<ASTNode> parsedNodes = new ArrayList<>(parseExpression(expr));
+        List<ASTNode> parsedNodes = new ArrayList<>();
+        parseExpression(expr, parsedNodes);
         if (guardType != null) {
-            ASTNode guardNode = new DefaultASTNode("Guard", ":guard");
-            guardNode.setChildren(parseConditional(expr));
-            parsedNodes.add(guardNode);
+            parsedNodes.add(createGuard(":guard", expr));
         }
         ruleNode.setChildren(parsedNodes);
     }
@@ -120,9 +185,9 @@ public class FunctionRuleBuilder implements RuleBuilder {
 
     private void handleVariableDeclaration(ASTNode ruleNode, VariableDeclarationExpr varExpr) {
         for (VariableDeclarator var : varExpr.getVariables()) {
-            ASTNode varNode = new DefaultASTNode("VariableDec   ", "var");
-            ASTNode varNameNode = new DefaultASTNode("VariableName", var.getNameAsString());
-            ASTNode typeNode = new DefaultASTNode("Type", getTypeString(var.getType().asString()));
+            ASTNode varNode = nodeFactory.create("VariableDec", "var");
+            ASTNode varNameNode = nodeFactory.create("VariableName", var.getNameAsString());
+            ASTNode typeNode = nodeFactory.create("Type", getTypeString(var.getType().asString()));
             varNode.addChild(varNameNode);
             varNode.addChild(typeNode);
             ruleNode.addChild(varNode);
@@ -138,23 +203,38 @@ public class FunctionRuleBuilder implements RuleBuilder {
         };
     }
 
-    private List<ASTNode> handleIfStatement(IfStmt ifStmt) {
-        List<ASTNode> nodes = new ArrayList<>();
-        ASTNode ifRuleNode = new DefaultASTNode("Rule");
-        handleThenStatement(ifRuleNode, ifStmt);
-        ASTNode guardNode = new DefaultASTNode("Guard", "guard");
-        guardNode.setChildren(parseConditional(ifStmt.getCondition()));
-        ifRuleNode.addChild(guardNode);
-        nodes.add(ifRuleNode);
-        if (ifStmt.getElseStmt().isPresent()) {
-            Statement elseStmt = ifStmt.getElseStmt().get();
-            if (elseStmt.isIfStmt()) {
-                nodes.addAll(handleElseIfStatement(elseStmt.asIfStmt())); // Add "else if" rules
+    //Emits one rule per branch of an if/else-if/else chain, leaving out branches the guard analysis proves can never
+    //fire, and returns how many were left out. The chain is followed iteratively so long dispatch methods take linear
+    //time and constant stack depth.
+    private int handleIfStatement(IfStmt ifStmt, List<ASTNode> nodes, Map<String, String> sorts) {
+        GuardAnalysis analysis = new GuardAnalysis(sorts);
+        int pruned = 0;
+        IfStmt branch = ifStmt;
+        while (branch != null) {
+            ASTNode guardNode = createGuard("guard", branch.getCondition());
+            if (analysis.canFire(guardNode.getChildren())) {
+                ASTNode ruleNode = nodeFactory.create("Rule");
+                handleThenStatement(ruleNode, branch);
+                ruleNode.addChild(guardNode);
+                nodes.add(ruleNode);
+            } else {
+                pruned++;
+            }
+            Statement elseStmt = branch.getElseStmt().orElse(null);
+            if (elseStmt != null && elseStmt.isIfStmt()) {
+                branch = elseStmt.asIfStmt(); // Continue with the "else if" rule
             } else {
-                nodes.add(handleElseStatement(elseStmt)); // Add "else" rule
+                if (elseStmt != null) {
+                    if (analysis.canFireOtherwise()) {
+                        nodes.add(handleElseStatement(elseStmt)); // Add "else" rule
+                    } else {
+                        pruned++;
+                    }
+                }
+                branch = null;
             }
         }
-        return nodes;
+        return pruned;
     }
 
     private void handleThenStatement(ASTNode parentNode, IfStmt ifStmt) {
@@ -168,27 +248,8 @@ public class FunctionRuleBuilder implements RuleBuilder {
         }
     }
 
-    private List<ASTNode> handleElseIfStatement(IfStmt elseIfStmt) {
-        List<ASTNode> nodes = new ArrayList<>();
-        ASTNode elseIfRuleNode = new DefaultASTNode("Rule");
-        ASTNode guardNode = new DefaultASTNode("Guard", "guard");
-        guardNode.setChildren(parseConditional(elseIfStmt.getCondition()));
-        handleThenStatement(elseIfRuleNode, elseIfStmt);
-        elseIfRuleNode.addChild(guardNode);
-        nodes.add(elseIfRuleNode);
-        if (elseIfStmt.getElseStmt().isPresent()) {
-            Statement nextElseStmt = elseIfStmt.getElseStmt().get();
-            if (nextElseStmt.isIfStmt()) {
-                nodes.addAll(handleElseIfStatement(nextElseStmt.asIfStmt()));
-            } else {
-                nodes.add(handleElseStatement(nextElseStmt));
-            }
-        }
-        return nodes;
-    }
-
     private ASTNode handleElseStatement(Statement elseStmt) {
-        ASTNode elseRuleNode = new DefaultASTNode("Rule");
+        ASTNode elseRuleNode = nodeFactory.create("Rule");
         if (elseStmt instanceof BlockStmt elseBlock) {
             for (Statement stmtInElse : elseBlock.getStatements()) {
                 handleStatement(elseRuleNode, stmtInElse);
@@ -207,33 +268,58 @@ public class FunctionRuleBuilder implements RuleBuilder {
         }
     }
 
-    private List<ASTNode> parseConditional (Expression expression) {
-        List<ASTNode> nodes = new ArrayList<>();
-        if (expression.isBinaryExpr()) {
-            BinaryExpr binaryExpr = expression.asBinaryExpr();
-            ASTNode node = getOperatorNode(binaryExpr);
-            nodes.add(node);
-            nodes.addAll(parseConditional(binaryExpr.getLeft()));
-            nodes.addAll(parseConditional(binaryExpr.getRight()));
-        } else if (expression.isUnaryExpr()) {
-            UnaryExpr unaryExpr = expression.asUnaryExpr();
-            String operator = unaryExpr.getOperator().asString();
-            if (operator.equals("!")) {
-                ASTNode node = new DefaultASTNode("Operator", "not");
-                nodes.add(node);
-                nodes.addAll(parseConditional(unaryExpr.getExpression()));
+    //Flattens a condition into prefix order in the same way as parseExpression, mapping the boolean and comparison
+    //operators to their LCTRS names
+    private void parseConditional (Expression expression, List<ASTNode> nodes) {
+        Deque<Expression> pending = new ArrayDeque<>();
+        pending.push(expression);
+        while (!pending.isEmpty()) {
+            Expression next = pending.pop();
+            if (next.isBinaryExpr()) {
+                BinaryExpr binaryExpr = next.asBinaryExpr();
+                nodes.add(getOperatorNode(binaryExpr));
+                pending.push(binaryExpr.getRight());
+                pending.push(binaryExpr.getLeft());
+            } else if (next.isUnaryExpr()) {
+                UnaryExpr unaryExpr = next.asUnaryExpr();
+                if (unaryExpr.getOperator() == UnaryExpr.Operator.LOGICAL_COMPLEMENT) {
+                    nodes.add(nodeFactory.create("Operator", "not"));
+                    pending.push(unaryExpr.getExpression());
+                }
+            } else if (next.isNameExpr()) {
+                nodes.add(nodeFactory.create("Variable", next.asNameExpr().getNameAsString()));
+            } else if (next.isLiteralExpr()) {
+                nodes.add(nodeFactory.create("Value", literalText(next.asLiteralExpr())));
             }
-        } else if (expression.isNameExpr()) {
-            NameExpr nameExpr = expression.asNameExpr();
-            nodes.add(new DefaultASTNode("Variable", nameExpr.getNameAsString()));
-        } else if (expression.isLiteralExpr()) {
-            nodes.add(new DefaultASTNode("Value", expression.toString()));
         }
-        return nodes;
     }
 
-    private static ASTNode getOperatorNode(BinaryExpr binaryExpr) {
-        ASTNode node = new DefaultASTNode("Operator");
+    private ASTNode createGuard(String value, Expression condition) {
+        ASTNode guardNode = nodeFactory.create("Guard", value);
+        List<ASTNode> conditionNodes = new ArrayList<>();
+        parseConditional(condition, conditionNodes);
+        guardNode.setChildren(conditionNodes);
+        return guardNode;
+    }
+
+    //Prints a literal as it appears in the source without going through a pretty printer
+    private static String literalText(LiteralExpr literal) {
+        if (literal.isCharLiteralExpr()) {
+            return "'" + literal.asCharLiteralExpr().getValue() + "'";
+        } else if (literal.isStringLiteralExpr()) {
+            return "\"" + literal.asStringLiteralExpr().getValue() + "\"";
+        } else if (literal instanceof LiteralStringValueExpr valueExpr && !literal.isTextBlockLiteralExpr()) {
+            return valueExpr.getValue();
+        } else if (literal.isBooleanLiteralExpr()) {
+            return String.valueOf(literal.asBooleanLiteralExpr().getValue());
+        } else if (literal.isNullLiteralExpr()) {
+            return "null";
+        }
+        return PRINTER.print(literal);
+    }
+
+    private ASTNode getOperatorNode(BinaryExpr binaryExpr) {
+        ASTNode node = nodeFactory.create("Operator");
         switch (binaryExpr.getOperator()) {
             case AND -> node.setValue("and");
             case OR -> node.setValue("or");
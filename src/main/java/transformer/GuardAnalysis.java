@@ -0,0 +1,375 @@
+package transformer;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Solver-free reachability analysis for the branches of one if/else-if/else chain, which are tried in order. A guard
+ * that is a conjunction of comparisons between an Int or Real variable and a number is read as a box: one interval per
+ * variable. A branch can never fire if its box is empty, lies inside the box of an earlier branch, or allows only
+ * values of some variable that earlier branches constraining just that variable already take. Conjuncts the
+ * analysis does not understand are ignored when testing a branch, and guards containing them are never used to
+ * shadow later branches, so every branch reported as unreachable really is.
+ */
+public class GuardAnalysis {
+    private final Map<String, String> sorts;
+    private final Map<String, IntervalSet> covered = new HashMap<>();
+    private final List<Box> earlier = new ArrayList<>();
+    private boolean exhausted;
+
+    /**
+     * Initialise for a new chain
+     * @param sorts SMT sort ("Int" or "Real") of each variable the guards may constrain, other variables are ignored
+     */
+    public GuardAnalysis(Map<String, String> sorts) {
+        this.sorts = sorts;
+    }
+
+    /**
+     * Checks whether the next branch of the chain can fire and records its guard for the branches after it
+     * @param guard the prefix list of the branch's guard
+     * @return false if the guard is unsatisfiable or covered by the guards of earlier branches
+     */
+    public boolean canFire(List<ASTNode> guard) {
+        Item item = read(guard);
+        boolean reachable = isReachable(item.box());
+        if (item.exact()) {
+            record(item.box());
+        }
+        return reachable;
+    }
+
+    /**
+     * Checks whether the final else branch of the chain can fire
+     * @return false if the guards of earlier branches cover every value
+     */
+    public boolean canFireOtherwise() {
+        return isReachable(Box.FULL);
+    }
+
+    //Guards on a single variable are merged into that variable's covered set, so long chains like x == 0, x == 1, ...
+    //are checked in logarithmic time per branch. Guards on several variables are compared one by one.
+    private void record(Box box) {
+        if (box.isEmpty()) {
+            return;
+        } else if (box.intervals.isEmpty()) {
+            exhausted = true;
+        } else if (box.intervals.size() == 1) {
+            Map.Entry<String, Interval> entry = box.intervals.entrySet().iterator().next();
+            covered.computeIfAbsent(entry.getKey(), variable -> new IntervalSet(isIntegral(variable)))
+                    .add(entry.getValue());
+        } else {
+            earlier.add(box);
+        }
+    }
+
+    private boolean isReachable(Box box) {
+        if (box.isEmpty() || exhausted) {
+            return false;
+        }
+        for (Map.Entry<String, IntervalSet> entry : covered.entrySet()) {
+            if (entry.getValue().covers(box.interval(entry.getKey()))) {
+                return false;
+            }
+        }
+        for (Box previous : earlier) {
+            if (previous.contains(box)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Rebuilds the guard's terms from right to left. Conjunctions of understood comparisons stay exact, anything else
+    //becomes an unconstrained, inexact box.
+    private Item read(List<ASTNode> guard) {
+        Deque<Item> items = new ArrayDeque<>();
+        for (int i = guard.size() - 1; i >= 0; i--) {
+            ASTNode node = guard.get(i);
+            if (node.getTypeId() != SymbolTable.OPERATOR) {
+                items.push(leaf(node));
+                continue;
+            }
+            int arity = node.getValue().equals("not") || node.getValue().equals("!") ? 1 : 2;
+            if (items.size() < arity) {
+                return Item.UNKNOWN;
+            }
+            Item left = items.pop();
+            Item right = arity == 2 ? items.pop() : null;
+            items.push(switch (node.getValue()) {
+                case "and", "&&" -> new Item(null, left.box().intersect(right.box()), left.exact() && right.exact());
+                case ">", "<", ">=", "<=", "==" -> compare(node.getValue(), left, right);
+                default -> Item.UNKNOWN;
+            });
+        }
+        if (items.size() != 1 || items.peek().node() != null) {
+            return Item.UNKNOWN;
+        }
+        return items.pop();
+    }
+
+    private Item leaf(ASTNode node) {
+        if (node.getTypeId() == SymbolTable.VALUE && "true".equals(node.getValue())) {
+            return new Item(null, Box.FULL, true);
+        } else if (node.getTypeId() == SymbolTable.VALUE && "false".equals(node.getValue())) {
+            return new Item(null, Box.EMPTY, true);
+        }
+        return new Item(node, Box.FULL, false);
+    }
+
+    private Item compare(String operator, Item left, Item right) {
+        if (isVariable(left.node()) && isNumber(right.node())) {
+            return atom(left.node().getValue(), operator, number(right.node()));
+        } else if (isNumber(left.node()) && isVariable(right.node())) {
+            String flipped = switch (operator) {
+                case ">" -> "<";
+                case "<" -> ">";
+                case ">=" -> "<=";
+                case "<=" -> ">=";
+                default -> operator;
+            };
+            return atom(right.node().getValue(), flipped, number(left.node()));
+        }
+        return Item.UNKNOWN;
+    }
+
+    private Item atom(String variable, String operator, BigDecimal bound) {
+        Interval interval = switch (operator) {
+            case ">" -> new Interval(bound, true, null, false);
+            case ">=" -> new Interval(bound, false, null, false);
+            case "<" -> new Interval(null, false, bound, true);
+            case "<=" -> new Interval(null, false, bound, false);
+            default -> new Interval(bound, false, bound, false);
+        };
+        if (isIntegral(variable)) {
+            interval = interval.toIntegers();
+        }
+        Map<String, Interval> intervals = new HashMap<>();
+        intervals.put(variable, interval);
+        return new Item(null, new Box(intervals, interval.isEmpty()), true);
+    }
+
+    private boolean isVariable(ASTNode node) {
+        return node != null && node.getTypeId() == SymbolTable.VARIABLE && sorts.containsKey(node.getValue());
+    }
+
+    private boolean isIntegral(String variable) {
+        return "Int".equals(sorts.get(variable));
+    }
+
+    private static boolean isNumber(ASTNode node) {
+        return node != null && node.getTypeId() == SymbolTable.VALUE && number(node) != null;
+    }
+
+    //Reads decimal int, long, float and double literals. Hex, octal and other literals are not understood.
+    private static BigDecimal number(ASTNode node) {
+        String digits = node.getValue().replace("_", "");
+        if (digits.isEmpty() || digits.startsWith("0x") || digits.startsWith("0X")
+                || (digits.length() > 1 && digits.charAt(0) == '0' && Character.isDigit(digits.charAt(1)))) {
+            return null;
+        }
+        char last = Character.toLowerCase(digits.charAt(digits.length() - 1));
+        if (last == 'l' || last == 'f' || last == 'd') {
+            digits = digits.substring(0, digits.length() - 1);
+        }
+        try {
+            return new BigDecimal(digits);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * An interval of numbers, unbounded on a side whose bound is null
+     * @param lower lower bound (can be null)
+     * @param lowerOpen whether the lower bound itself is excluded
+     * @param upper upper bound (can be null)
+     * @param upperOpen whether the upper bound itself is excluded
+     */
+    private record Interval(BigDecimal lower, boolean lowerOpen, BigDecimal upper, boolean upperOpen) {
+        private static final Interval FULL = new Interval(null, false, null, false);
+
+        //Narrows the bounds to the closed integer bounds of the same set of integers
+        Interval toIntegers() {
+            BigDecimal newLower = lower == null ? null : lowerOpen
+                    ? lower.setScale(0, RoundingMode.FLOOR).add(BigDecimal.ONE)
+                    : lower.setScale(0, RoundingMode.CEILING);
+            BigDecimal newUpper = upper == null ? null : upperOpen
+                    ? upper.setScale(0, RoundingMode.CEILING).subtract(BigDecimal.ONE)
+                    : upper.setScale(0, RoundingMode.FLOOR);
+            return new Interval(newLower, false, newUpper, false);
+        }
+
+        boolean isEmpty() {
+            if (lower == null || upper == null) {
+                return false;
+            }
+            int comparison = lower.compareTo(upper);
+            return comparison > 0 || (comparison == 0 && (lowerOpen || upperOpen));
+        }
+
+        Interval intersect(Interval other) {
+            boolean takeLower = other.lower == null || (lower != null
+                    && (lower.compareTo(other.lower) > 0 || (lower.compareTo(other.lower) == 0 && lowerOpen)));
+            boolean takeUpper = other.upper == null || (upper != null
+                    && (upper.compareTo(other.upper) < 0 || (upper.compareTo(other.upper) == 0 && upperOpen)));
+            return new Interval(takeLower ? lower : other.lower, takeLower ? lowerOpen : other.lowerOpen,
+                    takeUpper ? upper : other.upper, takeUpper ? upperOpen : other.upperOpen);
+        }
+
+        //Smallest interval holding both intervals, which must overlap or be adjacent
+        Interval union(Interval other) {
+            boolean takeLower = lower == null || (other.lower != null
+                    && (lower.compareTo(other.lower) < 0 || (lower.compareTo(other.lower) == 0 && !lowerOpen)));
+            boolean takeUpper = upper == null || (other.upper != null
+                    && (upper.compareTo(other.upper) > 0 || (upper.compareTo(other.upper) == 0 && !upperOpen)));
+            return new Interval(takeLower ? lower : other.lower, takeLower ? lowerOpen : other.lowerOpen,
+                    takeUpper ? upper : other.upper, takeUpper ? upperOpen : other.upperOpen);
+        }
+
+        boolean contains(Interval other) {
+            if (other.isEmpty()) {
+                return true;
+            }
+            boolean lowerInside = lower == null || (other.lower != null && (other.lower.compareTo(lower) > 0
+                    || (other.lower.compareTo(lower) == 0 && (!lowerOpen || other.lowerOpen))));
+            boolean upperInside = upper == null || (other.upper != null && (other.upper.compareTo(upper) < 0
+                    || (other.upper.compareTo(upper) == 0 && (!upperOpen || other.upperOpen))));
+            return lowerInside && upperInside;
+        }
+    }
+
+    /**
+     * Union of intervals of one variable, kept as a sorted list of disjoint intervals with gaps between them
+     */
+    private static class IntervalSet {
+        private final boolean integral;
+        private final List<Interval> intervals = new ArrayList<>();
+
+        private IntervalSet(boolean integral) {
+            this.integral = integral;
+        }
+
+        void add(Interval interval) {
+            int from = 0;
+            int to = intervals.size();
+            while (from < to) {
+                int middle = (from + to) >>> 1;
+                if (hasGapBetween(intervals.get(middle), interval)) {
+                    from = middle + 1;
+                } else {
+                    to = middle;
+                }
+            }
+            Interval merged = interval;
+            int end = from;
+            while (end < intervals.size() && !hasGapBetween(merged, intervals.get(end))) {
+                merged = merged.union(intervals.get(end));
+                end++;
+            }
+            intervals.subList(from, end).clear();
+            intervals.add(from, merged);
+        }
+
+        //Only the interval with the last lower bound not above the target's can contain it
+        boolean covers(Interval target) {
+            int from = 0;
+            int to = intervals.size();
+            while (from < to) {
+                int middle = (from + to) >>> 1;
+                if (compareLower(intervals.get(middle).lower(), target.lower()) <= 0) {
+                    from = middle + 1;
+                } else {
+                    to = middle;
+                }
+            }
+            return from > 0 && intervals.get(from - 1).contains(target);
+        }
+
+        //Checks whether some value lies after the end of the first interval and before the start of the second
+        private boolean hasGapBetween(Interval first, Interval second) {
+            if (first.upper() == null || second.lower() == null) {
+                return false;
+            } else if (integral) {
+                return second.lower().compareTo(first.upper().add(BigDecimal.ONE)) > 0;
+            }
+            int comparison = second.lower().compareTo(first.upper());
+            return comparison > 0 || (comparison == 0 && first.upperOpen() && second.lowerOpen());
+        }
+
+        private static int compareLower(BigDecimal first, BigDecimal second) {
+            if (first == null || second == null) {
+                return first == second ? 0 : first == null ? -1 : 1;
+            }
+            return first.compareTo(second);
+        }
+    }
+
+    /**
+     * A conjunction of intervals, one per constrained variable
+     */
+    private static class Box {
+        private static final Box FULL = new Box(Map.of(), false);
+        private static final Box EMPTY = new Box(Map.of(), true);
+
+        private final Map<String, Interval> intervals;
+        private final boolean empty;
+
+        private Box(Map<String, Interval> intervals, boolean empty) {
+            this.intervals = intervals;
+            this.empty = empty;
+        }
+
+        boolean isEmpty() {
+            return empty;
+        }
+
+        Interval interval(String variable) {
+            return intervals.getOrDefault(variable, Interval.FULL);
+        }
+
+        Box intersect(Box other) {
+            if (empty || other.empty) {
+                return EMPTY;
+            }
+            Map<String, Interval> result = new HashMap<>(intervals);
+            boolean resultEmpty = false;
+            for (Map.Entry<String, Interval> entry : other.intervals.entrySet()) {
+                Interval interval = result.merge(entry.getKey(), entry.getValue(), Interval::intersect);
+                resultEmpty |= interval.isEmpty();
+            }
+            return new Box(result, resultEmpty);
+        }
+
+        //Checks whether every point of the other box lies in this one
+        boolean contains(Box other) {
+            if (other.empty) {
+                return true;
+            } else if (empty) {
+                return false;
+            }
+            for (Map.Entry<String, Interval> entry : intervals.entrySet()) {
+                if (!entry.getValue().contains(other.interval(entry.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A term of a guard while it is being read
+     * @param node the variable or value node of a leaf, null for boolean terms
+     * @param box over-approximation of the values satisfying a boolean term
+     * @param exact whether the box holds exactly the satisfying values
+     */
+    private record Item(ASTNode node, Box box, boolean exact) {
+        private static final Item UNKNOWN = new Item(null, Box.FULL, false);
+    }
+}
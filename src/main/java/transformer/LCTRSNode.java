@@ -0,0 +1,86 @@
+package transformer;
+
+import java.util.List;
+
+/**
+ * Typed, immutable view of a translated LCTRS program. Where an ASTNode tree tells its nodes apart by type string, each
+ * kind of node here is its own record, so emitters can dispatch with an exhaustive switch and the compiler checks that
+ * every kind is handled. Trees are converted with LCTRSNodeConverter.
+ */
+public sealed interface LCTRSNode {
+
+    /**
+     * A whole program
+     * @param theory theory the program is written in
+     * @param functions signature of every function
+     * @param ruleSets rules of every function, in the same order as the signatures
+     */
+    record Program(Theory theory, List<FunctionDecl> functions, List<RuleSet> ruleSets) implements LCTRSNode {}
+
+    /**
+     * The SMT theory of a program
+     * @param name theory name as written in the LCTRS format
+     */
+    record Theory(String name) implements LCTRSNode {}
+
+    /**
+     * Signature of a function
+     * @param name function name
+     * @param parameterSorts sorts of the parameters, empty for constants
+     * @param returnSort sort of the result
+     */
+    record FunctionDecl(String name, List<String> parameterSorts, String returnSort) implements LCTRSNode {}
+
+    /**
+     * The rules of one function, sharing its left-hand side
+     * @param function function name
+     * @param parameters parameter names
+     * @param rules rules in source order
+     * @param pruned number of unreachable rules left out by the guard analysis
+     */
+    record RuleSet(String function, List<String> parameters, List<Rule> rules, int pruned) implements LCTRSNode {}
+
+    /**
+     * One rule: a right-hand side in prefix order with an optional guard
+     * @param terms right-hand side
+     * @param guard constraint under which the rule applies, or null if it always applies
+     */
+    record Rule(List<Term> terms, Guard guard) implements LCTRSNode {}
+
+    /**
+     * Constraint of a rule in prefix order
+     * @param kind keyword the constraint is introduced with
+     * @param terms the constraint
+     */
+    record Guard(String kind, List<Term> terms) implements LCTRSNode {}
+
+    /**
+     * Element of a right-hand side or guard
+     */
+    sealed interface Term extends LCTRSNode {}
+
+    /**
+     * An operator or function symbol, applied to the terms that follow it
+     * @param symbol operator or function name
+     */
+    record Op(String symbol) implements Term {}
+
+    /**
+     * A variable
+     * @param name variable name
+     */
+    record Var(String name) implements Term {}
+
+    /**
+     * A value written as it appears in the source, such as a number or a call argument
+     * @param text source text of the value
+     */
+    record Literal(String text) implements Term {}
+
+    /**
+     * A local variable declaration, which adds a fresh variable to its rule
+     * @param name variable name
+     * @param sort variable sort
+     */
+    record VarDecl(String name, String sort) implements Term {}
+}
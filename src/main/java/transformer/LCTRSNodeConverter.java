@@ -0,0 +1,129 @@
+package transformer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Converts the ASTNode tree produced by ASTTransformer into the typed LCTRSNode model. Sections and children are found
+ * by their type ids rather than by position, and a node of a kind that has no place in the model is reported instead
+ * of being emitted as is. Rules and guards keep their flat prefix order.
+ */
+public class LCTRSNodeConverter {
+
+    /**
+     * Default constructor
+     */
+    public LCTRSNodeConverter() {}
+
+    /**
+     * Converts a translated program
+     * @param root Program node with Theory, Functions and Rules children
+     * @return the typed program
+     * @throws IllegalArgumentException if the tree is not a translated program
+     */
+    public LCTRSNode.Program convert(ASTNode root) {
+        String theory = null;
+        List<LCTRSNode.FunctionDecl> functions = null;
+        List<LCTRSNode.RuleSet> ruleSets = null;
+        for (ASTNode child : root.getChildren()) {
+            switch (child.getTypeId()) {
+                case SymbolTable.THEORY -> theory = child.getValue();
+                case SymbolTable.FUNCTIONS -> functions = convertAll(child, this::functionDecl);
+                case SymbolTable.RULES -> ruleSets = convertAll(child, this::ruleSet);
+                default -> throw unexpected(child, root);
+            }
+        }
+        if (theory == null || functions == null || ruleSets == null) {
+            throw new IllegalArgumentException("Program needs Theory, Functions and Rules children");
+        }
+        return new LCTRSNode.Program(new LCTRSNode.Theory(theory), functions, ruleSets);
+    }
+
+    //The last child is the return sort, which test trees and older translations may also tag as a ParameterType
+    private LCTRSNode.FunctionDecl functionDecl(ASTNode function) {
+        List<ASTNode> types = function.getChildren();
+        if (types.isEmpty()) {
+            throw new IllegalArgumentException("Function " + function.getValue() + " has no return sort");
+        }
+        List<String> parameterSorts = new ArrayList<>(types.size() - 1);
+        for (ASTNode type : types.subList(0, types.size() - 1)) {
+            if (type.getTypeId() != SymbolTable.PARAMETER_TYPE) {
+                throw unexpected(type, function);
+            }
+            parameterSorts.add(type.getValue());
+        }
+        return new LCTRSNode.FunctionDecl(function.getValue(), parameterSorts, types.getLast().getValue());
+    }
+
+    private LCTRSNode.RuleSet ruleSet(ASTNode function) {
+        List<String> parameters = new ArrayList<>();
+        List<LCTRSNode.Rule> rules = List.of();
+        int pruned = 0;
+        for (ASTNode child : function.getChildren()) {
+            switch (child.getTypeId()) {
+                case SymbolTable.PARAMETER -> parameters.add(child.getValue());
+                case SymbolTable.RULES -> rules = convertAll(child, this::rule);
+                case SymbolTable.PRUNED -> pruned = Integer.parseInt(child.getValue());
+                case SymbolTable.THEORY -> {}
+                default -> throw unexpected(child, function);
+            }
+        }
+        return new LCTRSNode.RuleSet(function.getValue(), parameters, rules, pruned);
+    }
+
+    private LCTRSNode.Rule rule(ASTNode rule) {
+        List<LCTRSNode.Term> terms = new ArrayList<>(rule.getChildren().size());
+        LCTRSNode.Guard guard = null;
+        for (ASTNode child : rule.getChildren()) {
+            if (child.getTypeId() != SymbolTable.GUARD) {
+                terms.add(term(child, rule));
+            } else if (guard == null) {
+                guard = new LCTRSNode.Guard(child.getValue(), convertAll(child, term -> term(term, child)));
+            } else {
+                throw new IllegalArgumentException("Rule has more than one guard");
+            }
+        }
+        return new LCTRSNode.Rule(terms, guard);
+    }
+
+    //Called functions are applied like operators, and call arguments are kept as the source text they were printed as
+    private LCTRSNode.Term term(ASTNode node, ASTNode parent) {
+        return switch (node.getTypeId()) {
+            case SymbolTable.OPERATOR, SymbolTable.FUNCTION -> new LCTRSNode.Op(node.getValue());
+            case SymbolTable.VARIABLE -> new LCTRSNode.Var(node.getValue());
+            case SymbolTable.VALUE, SymbolTable.PARAMETER -> new LCTRSNode.Literal(node.getValue());
+            case SymbolTable.VARIABLE_DEC -> varDecl(node);
+            default -> throw unexpected(node, parent);
+        };
+    }
+
+    private LCTRSNode.VarDecl varDecl(ASTNode declaration) {
+        String name = null;
+        String sort = null;
+        for (ASTNode child : declaration.getChildren()) {
+            switch (child.getTypeId()) {
+                case SymbolTable.VARIABLE_NAME -> name = child.getValue();
+                case SymbolTable.TYPE -> sort = child.getValue();
+                default -> throw unexpected(child, declaration);
+            }
+        }
+        if (name == null || sort == null) {
+            throw new IllegalArgumentException("Variable declaration needs a VariableName and a Type");
+        }
+        return new LCTRSNode.VarDecl(name, sort);
+    }
+
+    private static <T> List<T> convertAll(ASTNode parent, Function<ASTNode, T> converter) {
+        List<ASTNode> children = parent.getChildren();
+        List<T> converted = new ArrayList<>(children.size());
+        for (ASTNode child : children) {
+            converted.add(converter.apply(child));
+        }
+        return converted;
+    }
+
+    private static IllegalArgumentException unexpected(ASTNode node, ASTNode parent) {
+        return new IllegalArgumentException("Unexpected " + node.getType() + " node in " + parent.getType());
+    }
+}
@@ -1,16 +1,27 @@
 package transformer;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-
-import static com.github.javaparser.utils.Utils.removeFileExtension;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 
 /**
- * Translates LCTRS AST into LCTRS grammar
+ * Translates LCTRS AST into LCTRS grammar. Trees are emitted directly, finding sections and children by their type
+ * ids, since rules and guards are already flat prefix-order lists. Programs built as typed LCTRSNode records are
+ * emitted with a single exhaustive switch over the node kinds.
  */
 public class LCTRSTextGenerator implements TextGenerator {
 
+    private static final int BUFFER_SIZE = 1 << 16;
+
     /**
      * Default constructor
      */
@@ -23,100 +34,268 @@ public class LCTRSTextGenerator implements TextGenerator {
      */
     public String generateText (ASTNode root) {
         StringBuilder builder = new StringBuilder();
-        builder.append("(format LCTRS :smtlib 2.6)");
-        builder.append(getTheory(root));
-        builder.append(getFunctionDeclarations(root));
-        builder.append(getRuleDeclarations(root));
+        try {
+            generate(root, builder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         return builder.toString();
     }
 
-    private String getTheory (ASTNode root) {
-        StringBuilder builder = new StringBuilder();
-        String theory = root.getChildren().getFirst().getValue();
-        builder.append("\n(theory ").append(theory).append(")");
-        return builder.toString();
+    /**
+     * Streams text with LCTRS grammar from AST to an output without building the whole text first
+     * @param root root node of AST
+     * @param out destination of the LCTRS text
+     * @throws IOException if the output cannot be written
+     */
+    @Override
+    public void generate (ASTNode root, Appendable out) throws IOException {
+        TranslationEvents.Generate event = new TranslationEvents.Generate();
+        event.begin();
+        ASTNode functions = section(root, SymbolTable.FUNCTIONS);
+        out.append("(format LCTRS :smtlib 2.6)");
+        out.append("\n(theory ").append(section(root, SymbolTable.THEORY).getValue()).append(")");
+        for (ASTNode function : functions.getChildren()) {
+            appendFunctionDeclaration(out, function);
+        }
+        for (ASTNode function : section(root, SymbolTable.RULES).getChildren()) {
+            appendRules(out, function);
+        }
+        if (event.shouldCommit()) {
+            event.functions = functions.getChildren().size();
+            event.commit();
+        }
     }
 
-    private String getFunctionDeclarations (ASTNode root) {
-        StringBuilder builder = new StringBuilder();
-        ASTNode functionDecs = root.getChildren().get(1);
-        for (ASTNode function : functionDecs.getChildren()) {
-            builder.append("\n(fun ").append(function.getValue());
-            if (!function.getChildren().getFirst().getType().equals("ParameterType")) {
-                builder.append(" ").append(function.getChildren().getFirst().getValue()).append(")");
-            } else {
-                builder.append(" (->");
-                for (ASTNode type : function.getChildren()) {
-                    builder.append(" ").append(type.getValue());
-                }
-                builder.append("))");
+    /**
+     * Streams text with LCTRS grammar from a typed program to an output
+     * @param program the program
+     * @param out destination of the LCTRS text
+     * @throws IOException if the output cannot be written
+     */
+    public void generate (LCTRSNode.Program program, Appendable out) throws IOException {
+        emit(program, out);
+    }
+
+    /**
+     * Streams text with LCTRS grammar from AST into a channel through a buffer
+     * @param root root node of AST
+     * @param channel destination of the LCTRS text, left open when done
+     * @throws IOException if the channel cannot be written
+     */
+    @Override
+    public void generate (ASTNode root, WritableByteChannel channel) throws IOException {
+        Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+        generate(root, writer);
+        writer.flush();
+    }
+
+    private static ASTNode section (ASTNode root, int typeId) {
+        for (ASTNode child : root.getChildren()) {
+            if (child.getTypeId() == typeId) {
+                return child;
             }
         }
-        return builder.toString();
+        throw new IllegalArgumentException("Program needs Theory, Functions and Rules children");
     }
 
-    private  String getRuleDeclarations (ASTNode root) {
-        StringBuilder builder = new StringBuilder();
-        ASTNode ruleDecs = root.getChildren().get(2);
-        for (ASTNode function : ruleDecs.getChildren()) {
-            builder.append(getRules(function));
+    //The last child is the return sort, which test trees and older translations may also tag as a ParameterType
+    private static void appendFunctionDeclaration (Appendable out, ASTNode function) throws IOException {
+        List<ASTNode> types = function.getChildren();
+        if (types.isEmpty()) {
+            throw new IllegalArgumentException("Function " + function.getValue() + " has no return sort");
         }
-        return builder.toString();
+        out.append("\n(fun ").append(function.getValue());
+        if (types.size() == 1) {
+            out.append(" ").append(types.getFirst().getValue()).append(")");
+            return;
+        }
+        out.append(" (->");
+        for (ASTNode type : types) {
+            out.append(" ").append(type.getValue());
+        }
+        out.append("))");
     }
 
-    private String getRules(ASTNode function) {
-        StringBuilder builder = new StringBuilder();
-        ASTNode rules = function.getChildren().getLast();
-        for (ASTNode rule : rules.getChildren()) {
-            builder.append("\n(rule (").append(function.getValue());
-            appendParameters(builder, function);
-            builder.append(") (");
-            appendRuleContents(builder, rule);
-            builder.append(")");
+    private static void appendRules (Appendable out, ASTNode function) throws IOException {
+        String ruleHead = getRuleHead(function);
+        ASTNode pruned = null;
+        for (ASTNode child : function.getChildren()) {
+            switch (child.getTypeId()) {
+                case SymbolTable.RULES -> {
+                    for (ASTNode rule : child.getChildren()) {
+                        out.append(ruleHead);
+                        appendRule(out, rule);
+                        out.append(")");
+                    }
+                }
+                case SymbolTable.PRUNED -> pruned = child;
+                case SymbolTable.PARAMETER, SymbolTable.THEORY -> {}
+                default -> throw unexpected(child, function);
+            }
+        }
+        if (pruned != null) {
+            out.append("\n; ").append(function.getValue()).append(": ").append(pruned.getValue())
+                    .append(" unreachable rules pruned");
         }
-        return builder.toString();
     }
 
-    private void appendParameters(StringBuilder builder, ASTNode function) {
+    //Builds the "(rule (f x y) (" prefix shared by every rule of a function
+    private static String getRuleHead (ASTNode function) {
+        StringBuilder builder = new StringBuilder("\n(rule (").append(function.getValue());
         for (ASTNode param : function.getChildren()) {
-            if (param.getType().equals("Parameter")) {
+            if (param.getTypeId() == SymbolTable.PARAMETER) {
                 builder.append(" ").append(param.getValue());
             }
         }
+        return builder.append(") (").toString();
     }
 
-    private void appendRuleContents(StringBuilder builder, ASTNode rule) {
-        boolean hasGuard = false;
-        for (ASTNode value : rule.getChildren()) {
-            if (value.getType().equals("Guard")) {
-                hasGuard = true;
-                builder.append(") :").append(value.getValue()).append(" (");
-                appendGuardContents(builder, value);
-                builder.append(")");
-            } else {
-                if (value != rule.getChildren().getFirst()) {
-                    builder.append(" ");
+    //Writes the right-hand side, then the guard wherever it is among the children, then the declared variables
+    private static void appendRule (Appendable out, ASTNode rule) throws IOException {
+        ASTNode guard = null;
+        boolean first = true;
+        for (ASTNode child : rule.getChildren()) {
+            if (child.getTypeId() == SymbolTable.GUARD) {
+                if (guard != null) {
+                    throw new IllegalArgumentException("Rule has more than one guard");
                 }
-                builder.append(value.getValue());
+                guard = child;
+                continue;
             }
+            if (!first) {
+                out.append(" ");
+            }
+            appendTerm(out, child, rule);
+            first = false;
         }
-        if (!hasGuard) {
-            builder.append(")");
+        if (guard != null) {
+            out.append(") :").append(guard.getValue()).append(" (");
+            first = true;
+            for (ASTNode child : guard.getChildren()) {
+                if (!first) {
+                    out.append(" ");
+                }
+                appendTerm(out, child, guard);
+                first = false;
+            }
         }
-        for (ASTNode value : rule.getChildren()) {
-            if (value.getType().equals("VariableDec")) {
-                builder.append(" :var ((").append(value.getChildren().get(0).getValue())
-                        .append(" ").append(value.getChildren().get(1).getValue()).append("))");
+        out.append(")");
+        for (ASTNode child : rule.getChildren()) {
+            if (child.getTypeId() == SymbolTable.VARIABLE_DEC) {
+                appendVariableDeclaration(out, child);
             }
         }
     }
 
-    private void appendGuardContents(StringBuilder builder, ASTNode guard) {
-        for (ASTNode child : guard.getChildren()) {
-            if (child != guard.getChildren().getFirst()) {
-                builder.append(" ");
+    private static void appendTerm (Appendable out, ASTNode term, ASTNode parent) throws IOException {
+        switch (term.getTypeId()) {
+            case SymbolTable.OPERATOR, SymbolTable.FUNCTION, SymbolTable.VARIABLE, SymbolTable.VALUE,
+                 SymbolTable.PARAMETER -> out.append(term.getValue());
+            case SymbolTable.VARIABLE_DEC -> out.append("var");
+            default -> throw unexpected(term, parent);
+        }
+    }
+
+    private static void appendVariableDeclaration (Appendable out, ASTNode declaration) throws IOException {
+        String name = null;
+        String sort = null;
+        for (ASTNode child : declaration.getChildren()) {
+            switch (child.getTypeId()) {
+                case SymbolTable.VARIABLE_NAME -> name = child.getValue();
+                case SymbolTable.TYPE -> sort = child.getValue();
+                default -> throw unexpected(child, declaration);
+            }
+        }
+        if (name == null || sort == null) {
+            throw new IllegalArgumentException("Variable declaration needs a VariableName and a Type");
+        }
+        out.append(" :var ((").append(name).append(" ").append(sort).append("))");
+    }
+
+    private static IllegalArgumentException unexpected (ASTNode node, ASTNode parent) {
+        return new IllegalArgumentException("Unexpected " + node.getType() + " node in " + parent.getType());
+    }
+
+    //A rule set writes the shared "(rule (f x y) (" head in front of each of its rules, so a rule on its own starts
+    //with its right-hand side and ends before the closing parenthesis of the rule
+    private void emit (LCTRSNode node, Appendable out) throws IOException {
+        switch (node) {
+            case LCTRSNode.Program program -> {
+                out.append("(format LCTRS :smtlib 2.6)");
+                emit(program.theory(), out);
+                for (LCTRSNode.FunctionDecl function : program.functions()) {
+                    emit(function, out);
+                }
+                for (LCTRSNode.RuleSet ruleSet : program.ruleSets()) {
+                    emit(ruleSet, out);
+                }
+            }
+            case LCTRSNode.Theory theory -> out.append("\n(theory ").append(theory.name()).append(")");
+            case LCTRSNode.FunctionDecl function -> {
+                out.append("\n(fun ").append(function.name());
+                if (function.parameterSorts().isEmpty()) {
+                    out.append(" ").append(function.returnSort()).append(")");
+                } else {
+                    out.append(" (->");
+                    for (String sort : function.parameterSorts()) {
+                        out.append(" ").append(sort);
+                    }
+                    out.append(" ").append(function.returnSort()).append("))");
+                }
+            }
+            case LCTRSNode.RuleSet ruleSet -> {
+                String ruleHead = getRuleHead(ruleSet);
+                for (LCTRSNode.Rule rule : ruleSet.rules()) {
+                    out.append(ruleHead);
+                    emit(rule, out);
+                    out.append(")");
+                }
+                if (ruleSet.pruned() > 0) {
+                    out.append("\n; ").append(ruleSet.function()).append(": ")
+                            .append(String.valueOf(ruleSet.pruned())).append(" unreachable rules pruned");
+                }
+            }
+            case LCTRSNode.Rule rule -> {
+                appendTerms(out, rule.terms());
+                if (rule.guard() != null) {
+                    emit(rule.guard(), out);
+                } else {
+                    out.append(")");
+                }
+                for (LCTRSNode.Term term : rule.terms()) {
+                    if (term instanceof LCTRSNode.VarDecl(String name, String sort)) {
+                        out.append(" :var ((").append(name).append(" ").append(sort).append("))");
+                    }
+                }
             }
-            builder.append(child.getValue());
+            case LCTRSNode.Guard guard -> {
+                out.append(") :").append(guard.kind()).append(" (");
+                appendTerms(out, guard.terms());
+                out.append(")");
+            }
+            case LCTRSNode.Op op -> out.append(op.symbol());
+            case LCTRSNode.Var var -> out.append(var.name());
+            case LCTRSNode.Literal literal -> out.append(literal.text());
+            case LCTRSNode.VarDecl ignored -> out.append("var");
+        }
+    }
+
+    //Builds the "(rule (f x y) (" prefix shared by every rule of a function
+    private String getRuleHead (LCTRSNode.RuleSet ruleSet) {
+        StringBuilder builder = new StringBuilder("\n(rule (").append(ruleSet.function());
+        for (String parameter : ruleSet.parameters()) {
+            builder.append(" ").append(parameter);
+        }
+        return builder.append(") (").toString();
+    }
+
+    private void appendTerms (Appendable out, List<LCTRSNode.Term> terms) throws IOException {
+        for (int i = 0; i < terms.size(); i++) {
+            if (i > 0) {
+                out.append(" ");
+            }
+            emit(terms.get(i), out);
         }
     }
 
@@ -127,13 +306,41 @@ public class LCTRSTextGenerator implements TextGenerator {
      */
     @Override
     public void writeToFile(String text, File inputFile) {
-        String directory = inputFile.getParent();
-        String fileName = removeFileExtension(inputFile.getName()) + ".ari";
-        File outputFile = new File(directory, fileName);
+        TranslationEvents.Write event = new TranslationEvents.Write();
+        event.begin();
+        File outputFile = getOutputFile(inputFile);
         try (FileWriter writer = new FileWriter(outputFile)) {
             writer.write(text);
         } catch (IOException e) {
             System.err.println("Error writing to file: " + e.getMessage());
         }
+        commitWrite(event, outputFile);
+    }
+
+    /**
+     * Streams the LCTRS text of an AST into a file in same directory as input file. Name is same as input file with
+     * .ari extension
+     * @param root root node of AST
+     * @param inputFile initial input file
+     * @throws IOException if the output file cannot be written
+     */
+    @Override
+    public void writeToFile(ASTNode root, File inputFile) throws IOException {
+        TranslationEvents.Write event = new TranslationEvents.Write();
+        event.begin();
+        File outputFile = getOutputFile(inputFile);
+        try (FileChannel channel = FileChannel.open(outputFile.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            generate(root, channel);
+        }
+        commitWrite(event, outputFile);
+    }
+
+    private static void commitWrite(TranslationEvents.Write event, File outputFile) {
+        if (event.shouldCommit()) {
+            event.file = outputFile.getPath();
+            event.size = outputFile.length();
+            event.commit();
+        }
     }
 }
@@ -0,0 +1,112 @@
+package transformer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Node of a tree read by TreeFormat.read. The node's type and value are decoded when it is created, its children the
+ * first time they are asked for; from then on it behaves like a DefaultASTNode.
+ */
+final class MappedASTNode implements ASTNode {
+    private final TreeFormat.MappedTree tree;
+    private final int childCount;
+    private final int childrenOffset;
+    private String type;
+    private int typeId;
+    private String value;
+    private List<ASTNode> children;
+
+    MappedASTNode(TreeFormat.MappedTree tree, int offset) {
+        this.tree = tree;
+        try {
+            TreeFormat.Reader in = tree.reader(offset);
+            this.type = tree.string(in.readVarint());
+            int valueIndex = in.readVarint();
+            this.value = valueIndex == 0 ? null : tree.string(valueIndex - 1);
+            this.childCount = in.readVarint();
+            in.readVarint();
+            this.childrenOffset = in.position;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.typeId = SymbolTable.wellKnownId(type);
+    }
+
+    @Override
+    public void addChild(ASTNode child) {
+        getChildren().add(child);
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public int getTypeId() {
+        return typeId;
+    }
+
+    @Override
+    public void setType(String type) {
+        this.type = type;
+        this.typeId = SymbolTable.wellKnownId(type);
+    }
+
+    @Override
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public List<ASTNode> getChildren() {
+        if (children == null) {
+            children = decodeChildren();
+        }
+        return children;
+    }
+
+    @Override
+    public void setChildren(List<ASTNode> children) {
+        this.children = children;
+    }
+
+    @Override
+    public void printTree(String indent) {
+        System.out.println(indent + type + (value != null ? " (" + value + ")" : ""));
+        for (ASTNode child : getChildren()) {
+            child.printTree(indent + " ");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "transformer.ASTNode{type='" + type + "', value='" + value + "', children="
+                + (children != null ? children.size() : childCount) + '}';
+    }
+
+    //Each child's record ends with the byte length of its own children, which is skipped to reach the next child
+    private List<ASTNode> decodeChildren() {
+        List<ASTNode> decoded = new ArrayList<>(childCount);
+        TreeFormat.Reader in = tree.reader(childrenOffset);
+        try {
+            for (int i = 0; i < childCount; i++) {
+                decoded.add(new MappedASTNode(tree, in.position));
+                in.readVarint();
+                in.readVarint();
+                in.readVarint();
+                in.skip(in.readVarint());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return decoded;
+    }
+}
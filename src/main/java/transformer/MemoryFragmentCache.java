@@ -0,0 +1,111 @@
+package transformer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fragment cache kept in memory for one source file between re-translations. Fragments are copied on the way out, so
+ * later passes may modify the returned trees freely. After each translation, retainUsed drops the fragments of methods
+ * that no longer exist, so the cache only ever holds the current version of the file. It can sit in front of a
+ * persistent cache shared by every file, which is consulted on a miss and receives every stored fragment. Not
+ * thread-safe, although the cache behind it must be if several memory caches share it.
+ */
+public class MemoryFragmentCache implements FragmentCache {
+    private Map<String, MethodFragment> fragments = new HashMap<>();
+    private Map<String, MethodFragment> used = new HashMap<>();
+    private int hits;
+    private int misses;
+    private final FragmentCache backing;
+
+    /**
+     * Default constructor
+     */
+    public MemoryFragmentCache() {
+        this(null);
+    }
+
+    /**
+     * Initialise with a cache to fall back to
+     * @param backing cache looked up on a miss and given every stored fragment (can be null)
+     */
+    public MemoryFragmentCache(FragmentCache backing) {
+        this.backing = backing;
+    }
+
+    /**
+     * Looks up the fragment stored for a key, in the backing cache if this one does not hold it
+     * @param key key computed by keyOf
+     * @param nodeFactory factory creating the nodes of the returned fragment
+     * @return a copy of the fragment, or null if the key is not cached
+     */
+    @Override
+    public MethodFragment get(String key, ASTNodeFactory nodeFactory) {
+        MethodFragment fragment = fragments.get(key);
+        if (fragment == null && backing != null) {
+            fragment = backing.get(key, ASTNodeFactory.DEFAULT);
+            if (fragment != null) {
+                fragments.put(key, fragment);
+            }
+        }
+        if (fragment == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        used.put(key, fragment);
+        return new MethodFragment(copyOf(fragment.declaration(), nodeFactory), copyOf(fragment.rule(), nodeFactory));
+    }
+
+    /**
+     * Stores a copy of the fragment of a method, and the fragment in the backing cache
+     * @param key key computed by keyOf
+     * @param fragment fragment to store
+     */
+    @Override
+    public void put(String key, MethodFragment fragment) {
+        MethodFragment copy = new MethodFragment(copyOf(fragment.declaration(), ASTNodeFactory.DEFAULT),
+                copyOf(fragment.rule(), ASTNodeFactory.DEFAULT));
+        fragments.put(key, copy);
+        used.put(key, copy);
+        if (backing != null) {
+            backing.put(key, fragment);
+        }
+    }
+
+    /**
+     * Keeps only the fragments looked up or stored since the last call and resets the hit and miss counts
+     */
+    public void retainUsed() {
+        fragments = used;
+        used = new HashMap<>();
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Returns the number of methods found in the cache since the last retainUsed
+     * @return number of hits
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of methods that had to be built since the last retainUsed
+     * @return number of misses
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    private static ASTNode copyOf(ASTNode node, ASTNodeFactory nodeFactory) {
+        if (node == null) {
+            return null;
+        }
+        ASTNode copy = nodeFactory.create(node.getType(), node.getValue());
+        for (ASTNode child : node.getChildren()) {
+            copy.addChild(copyOf(child, nodeFactory));
+        }
+        return copy;
+    }
+}
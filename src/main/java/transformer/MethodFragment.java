@@ -0,0 +1,8 @@
+package transformer;
+
+/**
+ * The LCTRS branches produced for a single method
+ * @param declaration function declaration branch, or null for a void method
+ * @param rule rule branch of the method
+ */
+public record MethodFragment(ASTNode declaration, ASTNode rule) {}
@@ -0,0 +1,227 @@
+package transformer;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Provider;
+import com.github.javaparser.Providers;
+import com.github.javaparser.StreamProvider;
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Parses java sources for translation. Every thread gets its own JavaParser, configured to skip everything the
+ * translation never looks at: comments are not attributed to nodes, tokens are not stored and lexical preservation
+ * is off. Files are read as UTF-8, large ones through a memory mapping decoded a buffer at a time as the parser reads
+ * and the rest through a stream, so the source text is never held in full, as a String or otherwise.
+ * <p>
+ * JavaParser parses by recursive descent, so the stack it needs grows with the nesting of the source: a default 512K
+ * stack overflows on an else-if chain of about a thousand branches. A source that overflows the calling thread's stack
+ * is parsed again through DeepStack, which handles chains of tens of thousands of branches.
+ */
+public class SourceParser {
+
+    /**
+     * Parser shared by translators that are not given their own
+     */
+    public static final SourceParser DEFAULT = new SourceParser();
+
+    //Files at least this large are memory-mapped, smaller ones are cheaper to read through a stream
+    private static final long MAPPING_THRESHOLD = 64 * 1024;
+
+    //A retry opens a new provider, so the one consumed by the overflowed attempt is never read again
+    private static final String DEEP_PARSE_THREAD = "javatolctrs-deep-parse";
+
+    private final ThreadLocal<JavaParser> parsers;
+
+    /**
+     * Default constructor using the translation configuration
+     */
+    public SourceParser() {
+        this(translationConfiguration());
+    }
+
+    /**
+     * Initialise with a parser configuration
+     * @param configuration configuration of the JavaParser created for each thread
+     */
+    public SourceParser(ParserConfiguration configuration) {
+        this.parsers = ThreadLocal.withInitial(() -> new JavaParser(configuration));
+    }
+
+    /**
+     * Returns the configuration used by default, which keeps only what the translation needs
+     * @return a new parser configuration
+     */
+    public static ParserConfiguration translationConfiguration() {
+        return new ParserConfiguration()
+                .setAttributeComments(false)
+                .setLexicalPreservationEnabled(false)
+                .setStoreTokens(false)
+                .setDetectOriginalLineSeparator(false);
+    }
+
+    /**
+     * Parses java source code
+     * @param sourceCode java source code
+     * @return the compilation unit of the source
+     * @throws ParseProblemException if the source is not valid java
+     */
+    public CompilationUnit parse(String sourceCode) {
+        TranslationEvents.Parse event = new TranslationEvents.Parse();
+        event.begin();
+        try {
+            return DeepStack.call(DEEP_PARSE_THREAD, () -> parse(Providers.provider(sourceCode)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (event.shouldCommit()) {
+                event.source = "<string>";
+                event.size = sourceCode.length();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Reads and parses a UTF-8 encoded java file
+     * @param sourceFile java file to parse
+     * @return the compilation unit of the file
+     * @throws IOException if the file cannot be read or is not valid UTF-8
+     * @throws ParseProblemException if the file is not valid java
+     */
+    public CompilationUnit parse(Path sourceFile) throws IOException {
+        TranslationEvents.Parse event = new TranslationEvents.Parse();
+        event.begin();
+        try {
+            return DeepStack.call(DEEP_PARSE_THREAD, () -> parseFile(sourceFile));
+        } finally {
+            if (event.shouldCommit()) {
+                event.source = sourceFile.toString();
+                event.size = sizeOf(sourceFile);
+                event.commit();
+            }
+        }
+    }
+
+    private CompilationUnit parseFile(Path sourceFile) throws IOException {
+        Provider source;
+        if (sourceFile.getFileSystem() == FileSystems.getDefault() && Files.size(sourceFile) >= MAPPING_THRESHOLD) {
+            source = new MappedProvider(map(sourceFile));
+        } else {
+            source = new StreamProvider(new InputStreamReader(Files.newInputStream(sourceFile),
+                    StandardCharsets.UTF_8.newDecoder()));
+        }
+        try (FailureRecordingProvider provider = new FailureRecordingProvider(source)) {
+            ParseResult<CompilationUnit> result = parsers.get().parse(ParseStart.COMPILATION_UNIT, provider);
+            if (provider.failure != null) {
+                throw provider.failure;
+            }
+            return resultOf(result);
+        }
+    }
+
+    private CompilationUnit parse(Provider provider) {
+        return resultOf(parsers.get().parse(ParseStart.COMPILATION_UNIT, provider));
+    }
+
+    private static long sizeOf(Path sourceFile) {
+        try {
+            return Files.size(sourceFile);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static CompilationUnit resultOf(ParseResult<CompilationUnit> result) {
+        if (!result.isSuccessful()) {
+            throw new ParseProblemException(result.getProblems());
+        }
+        return result.getResult().orElseThrow();
+    }
+
+    //The mapping stays valid after its channel is closed
+    private static MappedByteBuffer map(Path sourceFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(sourceFile, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Provider decoding the bytes of a mapped file straight into the buffer the parser reads into, so the file is
+     * never copied in full. The decoder reports malformed input instead of replacing it, like Files.readString.
+     */
+    private static class MappedProvider implements Provider {
+        private final ByteBuffer bytes;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+        private boolean decoded;
+        private boolean flushed;
+
+        MappedProvider(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read(char[] chars, int offset, int length) throws IOException {
+            CharBuffer out = CharBuffer.wrap(chars, offset, length);
+            if (!decoded) {
+                CoderResult result = decoder.decode(bytes, out, true);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                decoded = result.isUnderflow();
+            }
+            if (decoded && !flushed) {
+                flushed = decoder.flush(out).isUnderflow();
+            }
+            int count = out.position() - offset;
+            return count == 0 && flushed ? -1 : count;
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    /**
+     * Provider remembering read errors, which JavaParser treats as the end of the input
+     */
+    private static class FailureRecordingProvider implements Provider {
+        private final Provider provider;
+        private IOException failure;
+
+        FailureRecordingProvider(Provider provider) {
+            this.provider = provider;
+        }
+
+        @Override
+        public int read(char[] chars, int offset, int length) throws IOException {
+            try {
+                return provider.read(chars, offset, length);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            provider.close();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package transformer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns the node types, SMT sorts, operators and identifiers of LCTRS trees into compact int ids, so that a
+ * translation session (or a whole batch of files) keeps a single copy of each string. The node types and sorts
+ * produced by the builders are registered first in every table, so their ids are the constants below regardless of
+ * which table a node came from. A table never shrinks, so it is meant for symbols drawn from a small vocabulary rather
+ * than for literals. Safe for concurrent use.
+ */
+public final class SymbolTable {
+
+    /**
+     * Id used for a missing (null) symbol
+     */
+    public static final int NONE = -1;
+
+    //Ids of the well-known node types and sorts, shared by every table
+    public static final int PROGRAM = 0;
+    public static final int THEORY = 1;
+    public static final int FUNCTIONS = 2;
+    public static final int RULES = 3;
+    public static final int NAME = 4;
+    public static final int PARAMETER_TYPE = 5;
+    public static final int RETURN_TYPE = 6;
+    public static final int PARAMETER = 7;
+    public static final int RULE = 8;
+    public static final int GUARD = 9;
+    public static final int OPERATOR = 10;
+    public static final int VARIABLE = 11;
+    public static final int VALUE = 12;
+    public static final int FUNCTION = 13;
+    public static final int VARIABLE_DEC = 14;
+    public static final int VARIABLE_NAME = 15;
+    public static final int TYPE = 16;
+    public static final int INT = 17;
+    public static final int REAL = 18;
+    public static final int BOOLEAN = 19;
+    public static final int BIT_VECTOR = 20;
+    public static final int PRUNED = 21;
+
+    private static final List<String> WELL_KNOWN = List.of("Program", "Theory", "Functions", "Rules", "Name",
+            "ParameterType", "ReturnType", "Parameter", "Rule", "Guard", "Operator", "Variable", "Value", "Function",
+            "VariableDec", "VariableName", "Type", "Int", "Real", "Boolean", "(_ BitVec 32)", "Pruned");
+    private static final Map<String, Integer> WELL_KNOWN_IDS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < WELL_KNOWN.size(); i++) {
+            WELL_KNOWN_IDS.put(WELL_KNOWN.get(i), i);
+        }
+    }
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] symbols;
+    private int size;
+
+    /**
+     * Default constructor, creating a table holding only the well-known symbols
+     */
+    public SymbolTable() {
+        symbols = new String[256];
+        for (String symbol : WELL_KNOWN) {
+            intern(symbol);
+        }
+    }
+
+    /**
+     * Returns the id of a symbol, adding it to the table if it is new
+     * @param symbol the symbol to intern (can be null)
+     * @return id of the symbol, or NONE for null
+     */
+    public int intern(String symbol) {
+        if (symbol == null) {
+            return NONE;
+        }
+        Integer id = ids.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(symbol);
+            if (id == null) {
+                if (size == symbols.length) {
+                    symbols = Arrays.copyOf(symbols, size * 2);
+                }
+                id = size;
+                symbols[size++] = symbol;
+                ids.put(symbol, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Returns the symbol with an id
+     * @param id id returned by intern
+     * @return the symbol, or null for NONE
+     */
+    public String symbol(int id) {
+        return id == NONE ? null : symbols[id];
+    }
+
+    /**
+     * Returns the single shared copy of a symbol held by this table
+     * @param symbol the symbol to intern (can be null)
+     * @return an equal string, identical for all equal inputs
+     */
+    public String canonical(String symbol) {
+        return symbol(intern(symbol));
+    }
+
+    /**
+     * Returns the number of symbols in the table
+     * @return number of symbols
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Returns the constant id of a well-known node type or sort without needing a table
+     * @param symbol node type or sort
+     * @return its constant id, or NONE if it is not well-known
+     */
+    public static int wellKnownId(String symbol) {
+        if (symbol == null) {
+            return NONE;
+        }
+        return WELL_KNOWN_IDS.getOrDefault(symbol, NONE);
+    }
+}
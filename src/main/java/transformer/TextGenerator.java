@@ -1,6 +1,10 @@
 package transformer;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+import static com.github.javaparser.utils.Utils.removeFileExtension;
 
 /**
  * Default constructor
@@ -14,10 +18,46 @@ public interface TextGenerator {
      */
     String generateText (ASTNode root);
 
+    /**
+     * Streams text with LCTRS grammar from AST to an output without building the whole text first
+     * @param root root node of AST
+     * @param out destination of the LCTRS text
+     * @throws IOException if the output cannot be written
+     */
+    void generate (ASTNode root, Appendable out) throws IOException;
+
+    /**
+     * Streams text with LCTRS grammar from AST into a channel through a buffer
+     * @param root root node of AST
+     * @param channel destination of the LCTRS text, left open when done
+     * @throws IOException if the channel cannot be written
+     */
+    void generate (ASTNode root, WritableByteChannel channel) throws IOException;
+
     /**
      * Creates and writes output file in same directory as input file. Name is same as input file with .ari extension
      * @param text String representation of formatted LCTRS
      * @param inputFile initial input file
      */
     void writeToFile (String text, File inputFile);
+
+    /**
+     * Streams the LCTRS text of an AST into a file in same directory as input file. Name is same as input file with
+     * .ari extension
+     * @param root root node of AST
+     * @param inputFile initial input file
+     * @throws IOException if the output file cannot be written
+     */
+    void writeToFile (ASTNode root, File inputFile) throws IOException;
+
+    /**
+     * Returns the file the translation of an input file is written to: the same directory and name with an .ari
+     * extension
+     * @param inputFile initial input file
+     * @return the output file
+     */
+    default File getOutputFile (File inputFile) {
+        String fileName = removeFileExtension(inputFile.getName()) + ".ari";
+        return new File(inputFile.getParent(), fileName);
+    }
 }
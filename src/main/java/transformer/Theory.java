@@ -0,0 +1,130 @@
+package transformer;
+
+/**
+ * SMT theories an LCTRS can be written in, from the cheapest to the most general. A theory is inferred for each
+ * function from the sorts its declaration and rules actually use, and the theory of a program is the join of the
+ * theories of its functions.
+ */
+public enum Theory {
+    CORE("Core"),
+    INTS("Ints"),
+    REALS("Reals"),
+    REALS_INTS("Reals_Ints"),
+    FIXED_SIZE_BIT_VECTORS("FixedSizeBitVectors");
+
+    //Each of the first four theories is indexed by the sorts it covers, bit vectors cover everything
+    private static final int INT_SORT = 1;
+    private static final int REAL_SORT = 2;
+    private static final int BIT_VECTOR_SORT = 4;
+
+    private final String name;
+
+    Theory(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of the theory as written in the LCTRS format
+     * @return theory name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the cheapest theory covering both this theory and another
+     * @param other theory to combine with
+     * @return the join of the two theories
+     */
+    public Theory join(Theory other) {
+        return ofSorts(sorts() | other.sorts());
+    }
+
+    /**
+     * Infers the cheapest theory covering a function from its parameter and return types, the types of the variables
+     * declared in its rules and the literals its rules and guards contain
+     * @param declaration function declaration branch (can be null for void methods)
+     * @param rule rule branch of the same function
+     * @return theory of the function
+     */
+    public static Theory ofFunction(ASTNode declaration, ASTNode rule) {
+        int sorts = 0;
+        if (declaration != null) {
+            for (ASTNode type : declaration.getChildren()) {
+                sorts |= sortOfType(type.getValue());
+            }
+        }
+        for (ASTNode child : rule.getChildren()) {
+            if (child.getTypeId() == SymbolTable.RULES) {
+                for (ASTNode ruleNode : child.getChildren()) {
+                    sorts |= sortsOfRule(ruleNode);
+                }
+            }
+        }
+        return ofSorts(sorts);
+    }
+
+    /**
+     * Returns the theory with the given name
+     * @param name name as written in the LCTRS format
+     * @return the theory
+     * @throws IllegalArgumentException if no theory has that name
+     */
+    public static Theory fromName(String name) {
+        for (Theory theory : values()) {
+            if (theory.name.equals(name)) {
+                return theory;
+            }
+        }
+        throw new IllegalArgumentException("Unknown theory: " + name);
+    }
+
+    private int sorts() {
+        return this == FIXED_SIZE_BIT_VECTORS ? BIT_VECTOR_SORT : ordinal();
+    }
+
+    private static Theory ofSorts(int sorts) {
+        return (sorts & BIT_VECTOR_SORT) != 0 ? FIXED_SIZE_BIT_VECTORS : values()[sorts];
+    }
+
+    private static int sortsOfRule(ASTNode rule) {
+        int sorts = 0;
+        for (ASTNode node : rule.getChildren()) {
+            switch (node.getTypeId()) {
+                case SymbolTable.VALUE, SymbolTable.PARAMETER -> sorts |= sortOfLiteral(node.getValue());
+                case SymbolTable.VARIABLE_DEC -> sorts |= sortOfType(node.getChildren().get(1).getValue());
+                case SymbolTable.GUARD -> sorts |= sortsOfRule(node);
+                default -> {}
+            }
+        }
+        return sorts;
+    }
+
+    private static int sortOfType(String type) {
+        return switch (type) {
+            case "Int" -> INT_SORT;
+            case "Real" -> REAL_SORT;
+            case "(_ BitVec 32)" -> BIT_VECTOR_SORT;
+            default -> 0;
+        };
+    }
+
+    //Literals are stored as their source text, so the sort is read off their spelling. Anything that is not a char or
+    //number literal, such as a boolean or a call argument naming a variable, adds no sort.
+    private static int sortOfLiteral(String literal) {
+        if (literal.startsWith("'")) {
+            return BIT_VECTOR_SORT;
+        } else if (literal.isEmpty() || !(Character.isDigit(literal.charAt(0)) || literal.charAt(0) == '.')) {
+            return 0;
+        }
+        String lower = literal.toLowerCase();
+        if (lower.startsWith("0x")) {
+            return lower.contains("p") ? REAL_SORT : INT_SORT;
+        }
+        char last = lower.charAt(lower.length() - 1);
+        if (lower.contains(".") || lower.contains("e") || last == 'f' || last == 'd') {
+            return REAL_SORT;
+        }
+        return INT_SORT;
+    }
+}
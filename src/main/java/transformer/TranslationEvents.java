@@ -0,0 +1,146 @@
+package transformer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+/**
+ * JDK Flight Recorder events of the translation pipeline. They are disabled unless a recording enables them, as the
+ * javatolctrs.jfc settings bundled with the tool (and the --jfr option using them) do, so a plain run pays only for
+ * a check of whether each event is enabled.
+ */
+public final class TranslationEvents {
+    private static final String CATEGORY = "JavaToLCTRS";
+    private static final String SETTINGS = "/javatolctrs.jfc";
+
+    private TranslationEvents() {}
+
+    /**
+     * Loads the Flight Recorder settings bundled with the tool, enabling every translation event along with CPU
+     * sampling, allocation and GC events
+     * @return the javatolctrs.jfc configuration
+     * @throws IOException if the settings cannot be read
+     */
+    public static Configuration configuration() throws IOException {
+        InputStream settings = TranslationEvents.class.getResourceAsStream(SETTINGS);
+        if (settings == null) {
+            throw new IOException("Missing Flight Recorder settings " + SETTINGS);
+        }
+        try (Reader reader = new InputStreamReader(settings, StandardCharsets.UTF_8)) {
+            return Configuration.create(reader);
+        } catch (ParseException e) {
+            throw new IOException("Invalid Flight Recorder settings " + SETTINGS + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parsing of one java source
+     */
+    @Name("javatolctrs.Parse")
+    @Label("Parse")
+    @Category(CATEGORY)
+    @Description("JavaParser parsing one source file or string")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class Parse extends Event {
+        @Label("Source")
+        String source;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+    }
+
+    /**
+     * Transformation of one compilation unit into an LCTRS tree
+     */
+    @Name("javatolctrs.Transform")
+    @Label("Transform")
+    @Category(CATEGORY)
+    @Description("ASTTransformer building the LCTRS tree of one compilation unit")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class Transform extends Event {
+        @Label("Methods")
+        @Description("Methods found in the compilation unit")
+        int methods;
+
+        @Label("Functions")
+        @Description("Functions in the resulting tree")
+        int functions;
+    }
+
+    /**
+     * Building of the rules of one method
+     */
+    @Name("javatolctrs.BuildRule")
+    @Label("Build Rule")
+    @Category(CATEGORY)
+    @Description("FunctionRuleBuilder translating one method into rules")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class BuildRule extends Event {
+        @Label("Method")
+        String method;
+
+        @Label("Type")
+        @Description("Name of the class, interface, enum or record declaring the method")
+        String type;
+
+        @Label("Rules")
+        int rules;
+
+        @Label("Nodes")
+        @Description("Nodes of the function's rule branch")
+        long nodes;
+
+        @Label("Pruned")
+        @Description("Unreachable branches left out")
+        int pruned;
+    }
+
+    /**
+     * Generation of the LCTRS text of one tree
+     */
+    @Name("javatolctrs.Generate")
+    @Label("Generate")
+    @Category(CATEGORY)
+    @Description("LCTRSTextGenerator emitting the text of one LCTRS tree")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class Generate extends Event {
+        @Label("Functions")
+        int functions;
+    }
+
+    /**
+     * Writing of one output file, including the generation of its text when it is streamed
+     */
+    @Name("javatolctrs.Write")
+    @Label("Write")
+    @Category(CATEGORY)
+    @Description("Writing one .ari output file")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class Write extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+    }
+}
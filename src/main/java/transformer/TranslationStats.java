@@ -0,0 +1,160 @@
+package transformer;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Time spent in each phase of translating a file and the size of what it produced. Stats of several files can be
+ * added together to describe a whole batch.
+ */
+public class TranslationStats {
+
+    /**
+     * Phases of the translation pipeline, in the order they run
+     */
+    public enum Phase {
+        READ("read"),
+        PARSE("parse"),
+        TRANSFORM("transform"),
+        OPTIMIZE("optimize"),
+        GENERATE("generate"),
+        WRITE("write");
+
+        private final String name;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the name of the phase as used in reports
+         * @return lower case phase name
+         */
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final long[] nanos = new long[Phase.values().length];
+    private long methods;
+    private long rules;
+    private long nodes;
+    private long outputBytes;
+
+    /**
+     * Adds the time spent in a phase
+     * @param phase the phase
+     * @param elapsedNanos time spent in nanoseconds
+     */
+    public void addTime(Phase phase, long elapsedNanos) {
+        nanos[phase.ordinal()] += elapsedNanos;
+    }
+
+    /**
+     * Counts the functions, rules and nodes of a translated program
+     * @param root root of the LCTRS tree
+     */
+    public void countTree(ASTNode root) {
+        for (ASTNode branch : root.getChildren()) {
+            if (branch.getTypeId() == SymbolTable.RULES) {
+                for (ASTNode function : branch.getChildren()) {
+                    methods++;
+                    for (ASTNode child : function.getChildren()) {
+                        if (child.getTypeId() == SymbolTable.RULES) {
+                            rules += child.getChildren().size();
+                        }
+                    }
+                }
+            }
+        }
+        nodes += countNodes(root);
+    }
+
+    static long countNodes(ASTNode root) {
+        long count = 0;
+        Deque<ASTNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            count++;
+            for (ASTNode child : stack.pop().getChildren()) {
+                stack.push(child);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds the number of bytes written to the output
+     * @param bytes bytes written
+     */
+    public void addOutputBytes(long bytes) {
+        outputBytes += bytes;
+    }
+
+    /**
+     * Adds the times and counts of another file or batch to these
+     * @param other stats to add
+     */
+    public void add(TranslationStats other) {
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] += other.nanos[i];
+        }
+        methods += other.methods;
+        rules += other.rules;
+        nodes += other.nodes;
+        outputBytes += other.outputBytes;
+    }
+
+    /**
+     * Returns the time spent in a phase
+     * @param phase the phase
+     * @return time in nanoseconds
+     */
+    public long getNanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    /**
+     * Returns the time spent in all phases
+     * @return time in nanoseconds
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for (long phaseNanos : nanos) {
+            total += phaseNanos;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of methods translated into functions
+     * @return number of functions
+     */
+    public long getMethods() {
+        return methods;
+    }
+
+    /**
+     * Returns the number of rules emitted
+     * @return number of rules
+     */
+    public long getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns the number of nodes of the translated LCTRS trees
+     * @return number of nodes
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the number of bytes of LCTRS text written
+     * @return output size in bytes
+     */
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+}
@@ -0,0 +1,209 @@
+package transformer;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+/**
+ * Runs the full translation pipeline (parse, transform, generate, write) for a single source file
+ */
+public class Translator {
+    private final TreeTransformer transformer;
+    private final TreeOptimizer optimizer;
+    private final TextGenerator textGenerator;
+
+    /**
+     * Default constructor using the ASTTransformer, ConstantFolder and LCTRSTextGenerator
+     */
+    public Translator() {
+        this(new ASTTransformer(), new LCTRSTextGenerator());
+    }
+
+    /**
+     * Initialise with a symbol table shared by every file translated in the session
+     * @param symbols table interning the types and values of the generated nodes
+     */
+    public Translator(SymbolTable symbols) {
+        this(symbols, null);
+    }
+
+    /**
+     * Initialise with a symbol table and a fragment cache shared by every file translated in the session
+     * @param symbols table interning the types and values of the generated nodes
+     * @param cache cache of previously translated methods (can be null)
+     */
+    public Translator(SymbolTable symbols, FragmentCache cache) {
+        this(symbols, cache, null);
+    }
+
+    /**
+     * Initialise with a symbol table, a fragment cache and the entry points whose call graph is translated
+     * @param symbols table interning the types and values of the generated nodes
+     * @param cache cache of previously translated methods (can be null)
+     * @param entries names of the methods to translate along with every method they call, or null for all methods
+     */
+    public Translator(SymbolTable symbols, FragmentCache cache, Set<String> entries) {
+        this(new ASTTransformer(ASTNodeFactory.interning(symbols), cache, entries),
+                new ConstantFolder(ASTNodeFactory.interning(symbols)), new LCTRSTextGenerator());
+    }
+
+    /**
+     * Initialise with a transformer and text generator, folding constants in between with nodes from the transformer's
+     * node factory
+     * @param transformer transformer used to build the LCTRS AST
+     * @param textGenerator generator used to produce the LCTRS text
+     */
+    public Translator(TreeTransformer transformer, TextGenerator textGenerator) {
+        this(transformer, new ConstantFolder(transformer.getNodeFactory()), textGenerator);
+    }
+
+    /**
+     * Initialise with a transformer, optimizer and text generator
+     * @param transformer transformer used to build the LCTRS AST
+     * @param optimizer optimizer applied to the LCTRS AST before generating text
+     * @param textGenerator generator used to produce the LCTRS text
+     */
+    public Translator(TreeTransformer transformer, TreeOptimizer optimizer, TextGenerator textGenerator) {
+        this.transformer = transformer;
+        this.optimizer = optimizer;
+        this.textGenerator = textGenerator;
+    }
+
+    /**
+     * Translates a parsed compilation unit into LCTRS text
+     * @param cu the compilation unit to translate
+     * @return String representation of LCTRS
+     */
+    public String translate(CompilationUnit cu) {
+        ASTNode root = optimizer.optimize(transformer.transformTree(cu));
+        return textGenerator.generateText(root);
+    }
+
+    /**
+     * Parses and translates java source code into LCTRS text
+     * @param sourceCode java source code
+     * @return String representation of LCTRS
+     */
+    public String translateSource(String sourceCode) {
+        return translate(SourceParser.DEFAULT.parse(sourceCode));
+    }
+
+    /**
+     * Translates a java file and streams the result into a file next to it with an .ari extension
+     * @param sourceFile java file to translate
+     * @throws IOException if the file cannot be read or the output cannot be written
+     */
+    public void translateFile(Path sourceFile) throws IOException {
+        translateFile(parseFile(sourceFile), sourceFile);
+    }
+
+    /**
+     * Translates a java file into a file next to it with an .ari extension, recording the time spent in each phase
+     * and the size of the result. So that reading can be told apart from parsing and generating from writing, the
+     * source and the LCTRS text are each held in memory as a whole instead of being streamed.
+     * @param sourceFile java file to translate
+     * @param stats stats to add the times and counts of this file to
+     * @throws IOException if the file cannot be read or the output cannot be written
+     */
+    public void translateFile(Path sourceFile, TranslationStats stats) throws IOException {
+        translateFile(sourceFile, textGenerator.getOutputFile(sourceFile.toFile()).toPath(), stats);
+    }
+
+    /**
+     * Translates a java file and streams the result into an output file. Either file can belong to any file system,
+     * such as a jar or zip archive opened through the zip file system provider.
+     * @param sourceFile java file to translate
+     * @param outputFile file to write the LCTRS text to, created along with its parent directories if missing
+     * @throws IOException if the file cannot be read or the output cannot be written
+     */
+    public void translateFile(Path sourceFile, Path outputFile) throws IOException {
+        ASTNode root = optimizer.optimize(transformer.transformTree(parseFile(sourceFile)));
+        TranslationEvents.Write event = new TranslationEvents.Write();
+        event.begin();
+        createParent(outputFile);
+        try (WritableByteChannel channel = Files.newByteChannel(outputFile, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            textGenerator.generate(root, channel);
+        }
+        if (event.shouldCommit()) {
+            event.file = outputFile.toString();
+            event.size = Files.size(outputFile);
+            event.commit();
+        }
+    }
+
+    /**
+     * Translates a java file into an output file like translateFile(Path, Path), recording the time spent in each
+     * phase and the size of the result like translateFile(Path, TranslationStats)
+     * @param sourceFile java file to translate
+     * @param outputFile file to write the LCTRS text to, created along with its parent directories if missing
+     * @param stats stats to add the times and counts of this file to
+     * @throws IOException if the file cannot be read or the output cannot be written
+     */
+    public void translateFile(Path sourceFile, Path outputFile, TranslationStats stats) throws IOException {
+        long start = System.nanoTime();
+        String sourceCode = Files.readString(sourceFile);
+        start = lap(stats, TranslationStats.Phase.READ, start);
+        CompilationUnit cu = SourceParser.DEFAULT.parse(sourceCode);
+        start = lap(stats, TranslationStats.Phase.PARSE, start);
+        ASTNode root = transformer.transformTree(cu);
+        start = lap(stats, TranslationStats.Phase.TRANSFORM, start);
+        root = optimizer.optimize(root);
+        start = lap(stats, TranslationStats.Phase.OPTIMIZE, start);
+        String text = textGenerator.generateText(root);
+        start = lap(stats, TranslationStats.Phase.GENERATE, start);
+        TranslationEvents.Write event = new TranslationEvents.Write();
+        event.begin();
+        byte[] output = text.getBytes(StandardCharsets.UTF_8);
+        createParent(outputFile);
+        Files.write(outputFile, output);
+        lap(stats, TranslationStats.Phase.WRITE, start);
+        if (event.shouldCommit()) {
+            event.file = outputFile.toString();
+            event.size = output.length;
+            event.commit();
+        }
+        stats.countTree(root);
+        stats.addOutputBytes(output.length);
+    }
+
+    /**
+     * Translates an already parsed java file and streams the result into a file next to it with an .ari extension
+     * @param cu the parsed contents of the source file
+     * @param sourceFile java file the compilation unit was parsed from
+     * @throws IOException if the output cannot be written
+     */
+    public void translateFile(CompilationUnit cu, Path sourceFile) throws IOException {
+        ASTNode root = optimizer.optimize(transformer.transformTree(cu));
+        textGenerator.writeToFile(root, sourceFile.toFile());
+    }
+
+    /**
+     * Reads and parses a UTF-8 encoded java file
+     * @param sourceFile java file to parse
+     * @return the compilation unit of the file
+     * @throws IOException if the file cannot be read
+     */
+    public CompilationUnit parseFile(Path sourceFile) throws IOException {
+        return SourceParser.DEFAULT.parse(sourceFile);
+    }
+
+    private static void createParent(Path file) throws IOException {
+        Path parent = file.getParent();
+        if (parent != null && !Files.isDirectory(parent)) {
+            Files.createDirectories(parent);
+        }
+    }
+
+    private static long lap(TranslationStats stats, TranslationStats.Phase phase, long start) {
+        long now = System.nanoTime();
+        stats.addTime(phase, now - start);
+        return now;
+    }
+}
@@ -0,0 +1,291 @@
+package transformer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary format for LCTRS trees, so a tree can be kept between pipeline stages or in a cache without
+ * translating the java source or parsing LCTRS text again. A tree is written as:
+ * <pre>
+ * magic         4 bytes, "LCTB"
+ * version       varint
+ * string table  varint count, then per string a varint byte length and its UTF-8 bytes
+ * root node     node record
+ * </pre>
+ * A node record holds varints for the string table index of its type, the index of its value plus one (zero for a
+ * null value), its number of children and the byte length of its children's records, followed by those records. The
+ * byte length lets a reader skip a whole subtree, so trees read from a file are decoded lazily: a node's children are
+ * only decoded when they are first asked for. All varints are unsigned LEB128.
+ */
+public final class TreeFormat {
+    private static final int MAGIC = 0x4C435442;
+    private static final int VERSION = 1;
+
+    private TreeFormat() {}
+
+    /**
+     * Encodes a tree
+     * @param root root of the tree
+     * @return the encoded tree
+     */
+    public static byte[] encode(ASTNode root) {
+        Map<String, Integer> strings = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        List<Integer> childBytes = new ArrayList<>();
+        measure(root, strings, table, childBytes);
+        Writer out = new Writer();
+        out.writeInt(MAGIC);
+        out.writeVarint(VERSION);
+        out.writeVarint(table.size());
+        for (String string : table) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeVarint(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+        write(out, root, strings, childBytes.iterator());
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes a tree into a file, replacing its contents
+     * @param root root of the tree
+     * @param file file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(ASTNode root, Path file) throws IOException {
+        Files.write(file, encode(root));
+    }
+
+    /**
+     * Decodes a whole tree starting at the position of a buffer, leaving the position just after it
+     * @param buffer buffer holding an encoded tree
+     * @param nodeFactory factory creating the nodes of the returned tree
+     * @return root of the decoded tree
+     * @throws IOException if the buffer does not hold a valid tree
+     */
+    public static ASTNode decode(ByteBuffer buffer, ASTNodeFactory nodeFactory) throws IOException {
+        Reader in = new Reader(buffer, buffer.position());
+        String[] strings = new String[readHeader(in)];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readString();
+        }
+        ASTNode root = decodeNode(in, strings, nodeFactory);
+        buffer.position(in.position);
+        return root;
+    }
+
+    /**
+     * Memory-maps a file written by write and returns its root. Only the header and the offsets of the strings are
+     * read up front, nodes and strings are decoded as they are visited. The returned tree can be modified like any
+     * other, but is not safe for concurrent use as visiting it decodes nodes.
+     * @param file file holding an encoded tree
+     * @return root of the tree
+     * @throws IOException if the file cannot be read or does not hold a valid tree
+     */
+    public static ASTNode read(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Tree file too large: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        Reader in = new Reader(buffer, 0);
+        int[] offsets = new int[readHeader(in)];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = in.position;
+            in.skip(in.readVarint());
+        }
+        return new MappedASTNode(new MappedTree(buffer, offsets), in.position);
+    }
+
+    private static int readHeader(Reader in) throws IOException {
+        if (in.readInt() != MAGIC || in.readVarint() != VERSION) {
+            throw new IOException("Not an LCTRS tree of this version");
+        }
+        return in.readVarint();
+    }
+
+    //Interns the strings of the tree in pre-order and records the byte length of every node's children, in the same
+    //order write visits the nodes. Returns the length of the node's own record.
+    private static int measure(ASTNode node, Map<String, Integer> strings, List<String> table,
+                               List<Integer> childBytes) {
+        int type = intern(node.getType(), strings, table);
+        int value = node.getValue() == null ? 0 : intern(node.getValue(), strings, table) + 1;
+        int slot = childBytes.size();
+        childBytes.add(0);
+        int length = 0;
+        List<ASTNode> children = node.getChildren();
+        for (ASTNode child : children) {
+            length += measure(child, strings, table, childBytes);
+        }
+        childBytes.set(slot, length);
+        return varintSize(type) + varintSize(value) + varintSize(children.size()) + varintSize(length) + length;
+    }
+
+    private static int intern(String string, Map<String, Integer> strings, List<String> table) {
+        return strings.computeIfAbsent(string, s -> {
+            table.add(s);
+            return table.size() - 1;
+        });
+    }
+
+    private static void write(Writer out, ASTNode node, Map<String, Integer> strings,
+                              Iterator<Integer> childBytes) {
+        out.writeVarint(strings.get(node.getType()));
+        out.writeVarint(node.getValue() == null ? 0 : strings.get(node.getValue()) + 1);
+        List<ASTNode> children = node.getChildren();
+        out.writeVarint(children.size());
+        out.writeVarint(childBytes.next());
+        for (ASTNode child : children) {
+            write(out, child, strings, childBytes);
+        }
+    }
+
+    private static ASTNode decodeNode(Reader in, String[] strings, ASTNodeFactory nodeFactory) throws IOException {
+        String type = stringAt(strings, in.readVarint());
+        int value = in.readVarint();
+        ASTNode node = nodeFactory.create(type, value == 0 ? null : stringAt(strings, value - 1));
+        int childCount = in.readVarint();
+        in.readVarint();
+        for (int i = 0; i < childCount; i++) {
+            node.addChild(decodeNode(in, strings, nodeFactory));
+        }
+        return node;
+    }
+
+    private static String stringAt(String[] strings, int index) throws IOException {
+        if (index >= strings.length) {
+            throw new IOException("String index out of range: " + index);
+        }
+        return strings[index];
+    }
+
+    private static int varintSize(int value) {
+        return (38 - Integer.numberOfLeadingZeros(value | 1)) / 7;
+    }
+
+    /**
+     * Byte sink writing varints without the overhead of a data stream
+     */
+    private static class Writer extends ByteArrayOutputStream {
+
+        void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+    }
+
+    /**
+     * Cursor reading a buffer through absolute gets, so any number of cursors can share one buffer
+     */
+    static final class Reader {
+        private final ByteBuffer buffer;
+        int position;
+
+        Reader(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        int readInt() throws IOException {
+            check(4);
+            int value = buffer.getInt(position);
+            position += 4;
+            return value;
+        }
+
+        int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                check(1);
+                byte b = buffer.get(position++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    if (value < 0) {
+                        break;
+                    }
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint at " + position);
+        }
+
+        String readString() throws IOException {
+            int length = readVarint();
+            check(length);
+            byte[] bytes = new byte[length];
+            buffer.get(position, bytes);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        void skip(int length) throws IOException {
+            check(length);
+            position += length;
+        }
+
+        private void check(int length) throws IOException {
+            if (length > buffer.limit() - position) {
+                throw new IOException("Truncated tree at " + position);
+            }
+        }
+    }
+
+    /**
+     * Mapped file shared by the nodes of a lazily read tree, decoding each string once
+     */
+    static final class MappedTree {
+        private final ByteBuffer buffer;
+        private final int[] offsets;
+        private final String[] strings;
+
+        MappedTree(ByteBuffer buffer, int[] offsets) {
+            this.buffer = buffer;
+            this.offsets = offsets;
+            this.strings = new String[offsets.length];
+        }
+
+        Reader reader(int position) {
+            return new Reader(buffer, position);
+        }
+
+        String string(int index) {
+            if (index >= offsets.length) {
+                throw new UncheckedIOException(new IOException("String index out of range: " + index));
+            }
+            String string = strings[index];
+            if (string == null) {
+                try {
+                    string = reader(offsets[index]).readString();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                strings[index] = string;
+            }
+            return string;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package transformer;
+
+/**
+ * Rewrites an LCTRS abstract syntax tree into an equivalent one that is cheaper for a solver to work with
+ */
+public interface TreeOptimizer {
+
+    /**
+     * Optimizes an LCTRS AST, possibly modifying it in place
+     * @param root the root node of the transformed AST
+     * @return the root node of the optimized AST
+     */
+    ASTNode optimize(ASTNode root);
+}
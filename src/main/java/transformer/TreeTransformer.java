@@ -13,4 +13,12 @@ public interface TreeTransformer {
      * @return the root node of the transformed AST
      */
     ASTNode transformTree(CompilationUnit cu);
+
+    /**
+     * Returns the factory the nodes of transformed trees are created by, so later passes can add nodes of the same kind
+     * @return the node factory, ASTNodeFactory.DEFAULT unless the transformer uses another
+     */
+    default ASTNodeFactory getNodeFactory() {
+        return ASTNodeFactory.DEFAULT;
+    }
 }
@@ -2,9 +2,17 @@ import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import org.junit.jupiter.api.Test;
 import transformer.ASTNode;
+import transformer.ASTNodeFactory;
 import transformer.ASTTransformer;
+import transformer.LCTRSTextGenerator;
+import transformer.SymbolTable;
+import transformer.TextGenerator;
+import transformer.Translator;
 import transformer.TreeTransformer;
 
+import java.util.List;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class ASTTransformerTest {
@@ -59,4 +67,143 @@ public class ASTTransformerTest {
         assertEquals(returnType.getType(), "ReturnType");
         assertEquals(returnType.getValue(), "Int");
     }
+
+    @Test
+    public void testTransformTreeKeepsMethodOrderAcrossNestedClasses () {
+        CompilationUnit cu = StaticJavaParser.parse("""
+                public class Outer {
+                    int first(int x) { return x; }
+                    static class Inner {
+                        double second(double y) { return y; }
+                    }
+                    int third(int z) { return z; }
+                }""");
+        ASTNode root = transformer.transformTree(cu);
+        ASTNode functions = root.getChildren().get(1);
+        ASTNode rules = root.getChildren().get(2);
+        assertEquals(List.of("first", "second", "third"), functions.getChildren().stream().map(ASTNode::getValue).toList());
+        assertEquals(List.of("first", "second", "third"), rules.getChildren().stream().map(ASTNode::getValue).toList());
+        assertEquals("Reals_Ints", root.getChildren().getFirst().getValue());
+    }
+
+    @Test
+    public void testTransformTreeIgnoresTypesOutsideTranslatedFunctions () {
+        CompilationUnit cu = StaticJavaParser.parse("""
+                public class Counter {
+                    private double average;
+                    private char separator;
+                    int next(int x) { return x + 1; }
+                }""");
+        assertEquals("Ints", transformer.transformTree(cu).getChildren().getFirst().getValue());
+    }
+
+    @Test
+    public void testTransformTreeAddsTheoryToEachFunction () {
+        CompilationUnit cu = StaticJavaParser.parse("""
+                public class Mixed {
+                    boolean positive(boolean b) { if (b) { return true; } else { return false; } }
+                    int increment(int x) { return x + 1; }
+                    double half(double y) { return y * 0.5; }
+                    int letter(int x) { if (x > 0) { return 'a'; } else { return x; } }
+                }""");
+        ASTNode root = transformer.transformTree(cu);
+        List<String> theories = root.getChildren().get(2).getChildren().stream()
+                .map(function -> function.getChildren().getLast())
+                .peek(theory -> assertEquals("Theory", theory.getType()))
+                .map(ASTNode::getValue)
+                .toList();
+        assertEquals(List.of("Core", "Ints", "Reals", "FixedSizeBitVectors"), theories);
+        assertEquals("FixedSizeBitVectors", root.getChildren().getFirst().getValue());
+    }
+
+    @Test
+    public void testTransformTreeFromEntriesKeepsOnlyReachableMethods () {
+        CompilationUnit cu = StaticJavaParser.parse("""
+                public class Utils {
+                    double unused(double y) { return y * 2.5; }
+                    int helper(int x) { return leaf(x); }
+                    int entry(int x) { return helper(x); }
+                    int leaf(int x) { return x + 1; }
+                    int helper(int x, int y) { return x; }
+                    int cycle(int x) { return entry(x); }
+                }""");
+        TreeTransformer fromEntry = new ASTTransformer(ASTNodeFactory.DEFAULT, null, Set.of("entry"));
+        ASTNode root = fromEntry.transformTree(cu);
+        List<String> rules = root.getChildren().get(2).getChildren().stream().map(ASTNode::getValue).toList();
+        assertEquals(List.of("helper", "entry", "leaf", "helper"), rules);
+        assertEquals(4, root.getChildren().get(1).getChildren().size());
+        assertEquals("Ints", root.getChildren().getFirst().getValue());
+    }
+
+    @Test
+    public void testTransformTreeFromEntriesFollowsNestedCalls () {
+        CompilationUnit cu = StaticJavaParser.parse("""
+                public class Nested {
+                    int entry(int x) {
+                        if (guard(x) + 1 > 2) {
+                            return outer(inner(x));
+                        } else {
+                            return operand(x) * 2;
+                        }
+                    }
+                    int guard(int x) { return x; }
+                    int outer(int x) { return x; }
+                    int inner(int x) { return x + 1; }
+                    int operand(int x) { return x; }
+                    int unused(int x) { return x; }
+                }""");
+        TreeTransformer fromEntry = new ASTTransformer(ASTNodeFactory.DEFAULT, null, Set.of("entry"));
+        ASTNode root = fromEntry.transformTree(cu);
+        List<String> rules = root.getChildren().get(2).getChildren().stream().map(ASTNode::getValue).toList();
+        assertEquals(List.of("entry", "guard", "outer", "inner", "operand"), rules);
+    }
+
+    @Test
+    public void testTransformTreeFromMissingEntryFails () {
+        TreeTransformer fromEntry = new ASTTransformer(ASTNodeFactory.DEFAULT, null, Set.of("missing", "addFive"));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> fromEntry.transformTree(testCU));
+        assertTrue(e.getMessage().contains("missing"), e.getMessage());
+        assertFalse(e.getMessage().contains("addFive"), e.getMessage());
+    }
+
+    @Test
+    public void testTransformTreeInParallelKeepsSourceOrder () {
+        StringBuilder source = new StringBuilder("public class Generated {\n");
+        for (int i = 0; i < 2000; i++) {
+            source.append("    int m").append(i).append("(int x) { if (x > ").append(i)
+                    .append(") { return x + ").append(i).append("; } else { return m").append(i + 1).append("(x); } }\n");
+            if (i % 100 == 0) {
+                source.append("    static class Inner").append(i).append(" { double r").append(i)
+                        .append("(double y) { return y * 2.5; } }\n");
+            }
+        }
+        source.append("}");
+        CompilationUnit cu = StaticJavaParser.parse(source.toString());
+        TextGenerator textGenerator = new LCTRSTextGenerator();
+        String sequential = textGenerator.generateText(new ASTTransformer().transformTree(cu));
+        ASTNode root = new ASTTransformer(ASTNodeFactory.interning(new SymbolTable())).transformTree(cu);
+        assertEquals(sequential, textGenerator.generateText(root));
+        List<String> names = root.getChildren().get(2).getChildren().stream().map(ASTNode::getValue).toList();
+        assertEquals(List.of("m0", "r0", "m1"), names.subList(0, 3));
+        assertEquals("m1999", names.getLast());
+    }
+
+    @Test
+    public void testInterningTreeIsFolded() {
+        String source = """
+                class Fold {
+                    int f(int x) {
+                        if (x > 2 * 3) {
+                            return x + 4 * 5;
+                        } else {
+                            return x;
+                        }
+                    }
+                }""";
+        String expected = new Translator().translateSource(source);
+        assertEquals(expected, new Translator(new ASTTransformer(ASTNodeFactory.interning(new SymbolTable())),
+                new LCTRSTextGenerator()).translateSource(source));
+        assertTrue(expected.contains("(rule (f x) (+ x 20) :guard (> x 6))"), expected);
+    }
 }
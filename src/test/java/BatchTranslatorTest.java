@@ -0,0 +1,133 @@
+import cli.BatchTranslator;
+import cli.OutputTree;
+import cli.SourceCollector;
+import cli.StatsReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import transformer.TranslationStats;
+import transformer.Translator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchTranslatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testTranslateAllKeepsInputOrder() throws IOException {
+        Path first = writeSource("First.java", "class First { int f(int x) { return x + 1; } }");
+        Path broken = writeSource("Broken.java", "class Broken { int f(int x) { return x + ; } }");
+        Path second = writeSource("Second.java", "class Second { int g(int y) { return y; } }");
+        BatchTranslator batch = new BatchTranslator(new Translator(), 4);
+        List<BatchTranslator.Result> results = batch.translateAll(List.of(first, broken, second));
+        assertEquals(List.of(first, broken, second), results.stream().map(BatchTranslator.Result::source).toList());
+        assertTrue(results.get(0).succeeded());
+        assertFalse(results.get(1).succeeded());
+        assertTrue(results.get(2).succeeded());
+    }
+
+    @Test
+    public void testTranslateAllWritesOutputFiles() throws IOException {
+        Path source = writeSource("AddOne.java", "class AddOne { int f(int x) { return x + 1; } }");
+        new BatchTranslator(new Translator(), 2).translateAll(List.of(source));
+        String output = Files.readString(tempDir.resolve("AddOne.ari"));
+        assertTrue(output.contains("\n(rule (f x) (+ x 1))"));
+    }
+
+    @Test
+    public void testTranslateAllCollectsStats() throws IOException {
+        Path source = writeSource("Sign.java", """
+                class Sign {
+                    int sign(int x) { if (x > 0) { return 1; } else { return 0; } }
+                    int twice(int x) { return x * 2; }
+                }""");
+        Path broken = writeSource("Broken.java", "class Broken { int f(int x) { return x + ; } }");
+        List<BatchTranslator.Result> results = new BatchTranslator(new Translator(), 2, true)
+                .translateAll(List.of(source, broken));
+        TranslationStats stats = results.get(0).stats();
+        assertEquals(2, stats.getMethods());
+        assertEquals(3, stats.getRules());
+        assertTrue(stats.getNodes() > stats.getRules());
+        assertEquals(Files.size(tempDir.resolve("Sign.ari")), stats.getOutputBytes());
+        assertTrue(stats.getNanos(TranslationStats.Phase.PARSE) > 0);
+        assertNotNull(results.get(1).stats());
+
+        StringBuilder json = new StringBuilder();
+        StatsReport.write(results, 5_000_000, json);
+        String report = json.toString();
+        assertTrue(report.contains("\"file\": " + quoted(source) + ", \"error\": null, \"phases\": {\"read\": "));
+        assertTrue(report.contains("\"methods\": 2, \"rules\": 3, "));
+        assertTrue(report.contains("\"batch\": {\"files\": 2, \"failed\": 1, \"wallMs\": 5.000, "));
+        assertTrue(report.contains("\"filesPerSecond\": 400.000"));
+    }
+
+    @Test
+    public void testTranslateAllWithoutStats() throws IOException {
+        Path source = writeSource("AddOne.java", "class AddOne { int f(int x) { return x + 1; } }");
+        assertNull(new BatchTranslator(new Translator(), 1).translateAll(List.of(source)).getFirst().stats());
+    }
+
+    @Test
+    public void testTranslateArchiveIntoDirectoryAndArchive() throws IOException {
+        Path jar = tempDir.resolve("sources.zip");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+            zip.putNextEntry(new ZipEntry("pkg/AddOne.java"));
+            zip.write("class AddOne { int f(int x) { return x + 1; } }".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        Path directory = tempDir.resolve("out");
+        Path archive = tempDir.resolve("out.jar");
+        for (Path destination : List.of(directory, archive)) {
+            try (SourceCollector collector = new SourceCollector();
+                 OutputTree outputs = OutputTree.open(destination)) {
+                SourceCollector.Source source = collector.collectSources(List.of(jar.toString())).getFirst();
+                List<BatchTranslator.Result> results = new BatchTranslator(new Translator(), 2, false,
+                        path -> outputs.outputFor(source)).translateAll(List.of(source.path()));
+                assertTrue(results.getFirst().succeeded(), results.getFirst().error());
+            }
+        }
+        assertTrue(Files.readString(directory.resolve("pkg/AddOne.ari")).contains("\n(rule (f x) (+ x 1))"));
+        try (FileSystem written = FileSystems.newFileSystem(archive)) {
+            assertEquals(Files.readString(directory.resolve("pkg/AddOne.ari")),
+                    Files.readString(written.getPath("pkg/AddOne.ari")));
+        }
+    }
+
+    @Test
+    public void testSourcesWithTheSameOutputAreRejected() throws IOException {
+        Path first = Files.createDirectories(tempDir.resolve("a")).resolve("X.java");
+        Path second = Files.createDirectories(tempDir.resolve("b")).resolve("X.java");
+        Files.writeString(first, "class X { int f(int x) { return x; } }");
+        Files.writeString(second, "class X { int g(int x) { return x; } }");
+        try (SourceCollector collector = new SourceCollector();
+             OutputTree outputs = OutputTree.open(tempDir.resolve("out"))) {
+            List<SourceCollector.Source> sources = collector.collectSources(List.of(first.toString(),
+                    second.toString()));
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> outputs.outputsFor(sources));
+            assertTrue(e.getMessage().contains(first.toString()) && e.getMessage().contains(second.toString()),
+                    e.getMessage());
+            assertEquals(tempDir.resolve("out").resolve("X.ari"),
+                    outputs.outputsFor(sources.subList(0, 1)).get(first));
+        }
+    }
+
+    private static String quoted(Path path) {
+        return '"' + path.toString().replace("\\", "\\\\") + '"';
+    }
+
+    private Path writeSource(String name, String content) throws IOException {
+        return Files.writeString(tempDir.resolve(name), content);
+    }
+}
@@ -0,0 +1,61 @@
+import org.junit.jupiter.api.Test;
+import transformer.Translator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConstantFolderTest {
+    private final Translator translator = new Translator();
+
+    @Test
+    public void testFoldsConstantArithmetic() {
+        String output = translator.translateSource("class T { int f(int x) { return x + 2 * 3 - 1; } }");
+        assertTrue(output.contains("\n(rule (f x) (- + x 6 1))"), output);
+    }
+
+    @Test
+    public void testFoldsLiteralOnlyExpression() {
+        String output = translator.translateSource("class T { int f(int x) { return 1 + 2; } }");
+        assertTrue(output.contains("\n(rule (f x) (3))"), output);
+    }
+
+    @Test
+    public void testLeavesNegativeResultsUnfolded() {
+        String output = translator.translateSource("""
+                class T { int f(int x) { return 1 - 5; } int g(int x) { return x + 2 * 3 - 10; } }""");
+        assertTrue(output.contains("\n(rule (f x) (- 1 5))"), output);
+        assertTrue(output.contains("\n(rule (g x) (- + x 6 10))"), output);
+        String comparison = translator.translateSource("""
+                class T { int f(int x) { if (1 - 5 > 0) { return x; } else { return 0; } } }""");
+        assertTrue(comparison.contains(":guard (> - 1 5 0)"), comparison);
+    }
+
+    @Test
+    public void testDropsTrueConjuncts() {
+        String output = translator.translateSource("""
+                class T { int f(int x) { if (x > 5 && true) { return x; } else { return 0; } } }""");
+        assertTrue(output.contains("\n(rule (f x) (x) :guard (> x 5))"), output);
+    }
+
+    @Test
+    public void testRemovesGuardThatIsAlwaysTrue() {
+        String output = translator.translateSource("""
+                class T { int f(int x) { if (2 > 1) { return x; } else { return 0; } } }""");
+        assertTrue(output.contains("\n(rule (f x) (x))"), output);
+    }
+
+    @Test
+    public void testRemovesRuleWhoseGuardIsFalse() {
+        String output = translator.translateSource("""
+                class T { int f(int x) { if (x > 0 && 1 > 2) { return x; } else { return 0; } } }""");
+        assertFalse(output.contains("(rule (f x) (x)"), output);
+        assertTrue(output.contains("\n(rule (f x) (0))"), output);
+    }
+
+    @Test
+    public void testLeavesVariablesRealsAndDivisionAlone() {
+        String output = translator.translateSource("""
+                class T { double f(double y) { return y * 1.5 + 0.5; } int g(int x) { return 7 / 2 + x; } }""");
+        assertTrue(output.contains("\n(rule (f y) (+ * y 1.5 0.5))"), output);
+        assertTrue(output.contains("\n(rule (g x) (+ / 7 2 x))"), output);
+    }
+}
@@ -0,0 +1,106 @@
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import transformer.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiskFragmentCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private final String source = """
+            class AddFive {
+                int addFive(int x) {
+                    return x + 5;
+                }
+            }""";
+
+    @Test
+    public void testToolVersionIsFilledInByTheBuild() {
+        assertNotNull(FragmentCache.TOOL_VERSION);
+        assertFalse(FragmentCache.TOOL_VERSION.isBlank());
+        assertFalse(FragmentCache.TOOL_VERSION.contains("${"), FragmentCache.TOOL_VERSION);
+    }
+
+    @Test
+    public void testKeyIgnoresCommentsButNotCode() {
+        MethodDeclaration method = parseMethod(source);
+        MethodDeclaration commented = parseMethod("""
+                class AddFive {
+                    // adds five
+                    int addFive(int x) {
+                        return x + 5; // result
+                    }
+                }""");
+        MethodDeclaration changed = parseMethod(source.replace("5", "6"));
+        assertEquals(FragmentCache.keyOf(method), FragmentCache.keyOf(commented));
+        assertNotEquals(FragmentCache.keyOf(method), FragmentCache.keyOf(changed));
+    }
+
+    @Test
+    public void testPutAndGetRoundTrip() throws IOException {
+        DiskFragmentCache cache = new DiskFragmentCache(cacheDir, 1 << 20);
+        MethodDeclaration method = parseMethod(source);
+        MethodFragment fragment = new MethodFragment(new FunctionDeclarationBuilder().functionDeclaration(method),
+                new FunctionRuleBuilder().buildRule(method));
+        String key = FragmentCache.keyOf(method);
+        assertNull(cache.get(key, ASTNodeFactory.DEFAULT));
+        cache.put(key, fragment);
+        MethodFragment cached = new DiskFragmentCache(cacheDir, 1 << 20).get(key, ASTNodeFactory.DEFAULT);
+        assertNotNull(cached);
+        assertEquals(describe(fragment.declaration()), describe(cached.declaration()));
+        assertEquals(describe(fragment.rule()), describe(cached.rule()));
+    }
+
+    @Test
+    public void testTransformerUsesCachedFragments() throws IOException {
+        DiskFragmentCache cache = new DiskFragmentCache(cacheDir, 1 << 20);
+        CompilationUnit cu = StaticJavaParser.parse(source);
+        LCTRSTextGenerator generator = new LCTRSTextGenerator();
+        String uncached = generator.generateText(new ASTTransformer().transformTree(cu));
+        TreeTransformer cachedTransformer = new ASTTransformer(ASTNodeFactory.DEFAULT, cache);
+        assertEquals(uncached, generator.generateText(cachedTransformer.transformTree(cu)));
+        assertEquals(uncached, generator.generateText(cachedTransformer.transformTree(cu)));
+
+        ASTNode marker = new DefaultASTNode("Name", "fromCache");
+        marker.addChild(new DefaultASTNode("Rules"));
+        cache.put(FragmentCache.keyOf(parseMethod(source)), new MethodFragment(null, marker));
+        ASTNode root = cachedTransformer.transformTree(StaticJavaParser.parse(source));
+        assertEquals("fromCache", root.getChildren().get(2).getChildren().getFirst().getValue());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedEntries() throws IOException {
+        DiskFragmentCache cache = new DiskFragmentCache(cacheDir, 2048);
+        for (int i = 0; i < 100; i++) {
+            MethodDeclaration method = parseMethod(source.replace("5", Integer.toString(i)));
+            cache.put(FragmentCache.keyOf(method), new MethodFragment(null, new FunctionRuleBuilder().buildRule(method)));
+        }
+        long total;
+        try (Stream<Path> files = Files.walk(cacheDir)) {
+            total = files.filter(f -> f.toString().endsWith(".frag")).mapToLong(f -> f.toFile().length()).sum();
+        }
+        assertTrue(total > 0 && total <= 2048, "cache should stay under its limit but holds " + total + " bytes");
+    }
+
+    private MethodDeclaration parseMethod(String code) {
+        return StaticJavaParser.parse(code).findFirst(MethodDeclaration.class).orElseThrow();
+    }
+
+    private String describe(ASTNode node) {
+        StringBuilder builder = new StringBuilder(node.getType()).append('(').append(node.getValue());
+        for (ASTNode child : node.getChildren()) {
+            builder.append(' ').append(describe(child));
+        }
+        return builder.append(')').toString();
+    }
+}
@@ -1,12 +1,34 @@
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.IntegerLiteralExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.type.PrimitiveType;
 import org.junit.jupiter.api.Test;
 import transformer.ASTNode;
 import transformer.FunctionRuleBuilder;
+import transformer.MemoryFragmentCache;
+import transformer.SymbolTable;
+import transformer.Translator;
 
-import static org.junit.jupiter.api.Assertions.*;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class FunctionRuleBuilderTest {
 
@@ -89,6 +111,208 @@ public class FunctionRuleBuilderTest {
         assertEquals("Guard", guardNode.getType());
     }
 
+    @Test
+    public void testHandleElseIfChain() {
+        String methodCode = """
+                public int sign(int x) {
+                    if (x > 0) {
+                        return 1;
+                    } else if (x < 0) {
+                        return -1;
+                    } else if (x == 0) {
+                        return 0;
+                    } else {
+                        return 2;
+                    }
+                }
+                """;
+        ASTNode function = ruleBuilder.buildRule(parseMethod(methodCode));
+        List<ASTNode> rules = function.getChildren().get(1).getChildren();
+        assertEquals(3, rules.size());
+        assertEquals("<", rules.get(1).getChildren().getLast().getChildren().getFirst().getValue());
+        assertEquals("Guard", rules.get(2).getChildren().getLast().getType());
+        assertEquals("Pruned", function.getChildren().getLast().getType());
+        assertEquals("1", function.getChildren().getLast().getValue());
+    }
+
+    @Test
+    public void testPrunesShadowedBranches() {
+        String methodCode = """
+                public int grade(int x, double y) {
+                    if (x > 5) {
+                        return 1;
+                    } else if (x > 10) {
+                        return 2;
+                    } else if (x > 3 && x < 4) {
+                        return 3;
+                    } else if (y >= 0.5 && x > 7) {
+                        return 4;
+                    } else if (x > 10 && y < 0.5) {
+                        return 5;
+                    } else if (x + y > 3) {
+                        return 6;
+                    } else {
+                        return 7;
+                    }
+                }
+                """;
+        ASTNode function = ruleBuilder.buildRule(parseMethod(methodCode));
+        List<String> results = function.getChildren().get(2).getChildren().stream()
+                .map(rule -> rule.getChildren().getFirst().getValue())
+                .toList();
+        assertEquals(List.of("1", "6", "7"), results);
+        assertEquals("4", function.getChildren().getLast().getValue());
+    }
+
+    @Test
+    public void testKeepsReachableBranches() {
+        String methodCode = """
+                public int grade(int x, int z) {
+                    if (x > 10) {
+                        return 1;
+                    } else if (x > 5) {
+                        return 2;
+                    } else if (z > 10) {
+                        return 3;
+                    } else if (x + z > 3) {
+                        return 4;
+                    } else {
+                        return 5;
+                    }
+                }
+                """;
+        ASTNode function = ruleBuilder.buildRule(parseMethod(methodCode));
+        assertEquals(5, function.getChildren().get(2).getChildren().size());
+        assertEquals("Rules", function.getChildren().getLast().getType());
+    }
+
+    @Test
+    public void testLongElseIfChainScalesLinearly() {
+        int branches = 20_000;
+        MethodDeclaration method = elseIfChain(branches);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        ASTNode function = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> ruleBuilder.buildRule(method));
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        List<ASTNode> rules = function.getChildren().getLast().getChildren();
+        assertEquals(branches + 1, rules.size());
+        assertEquals("19999", rules.get(branches - 1).getChildren().get(2).getValue());
+        assertTrue(allocated < 4096L * branches, "allocated " + allocated + " bytes for " + branches + " branches");
+    }
+
+    @Test
+    public void testLongElseIfChainTranslatesFromSource() {
+        int branches = 10_000;
+        StringBuilder source = new StringBuilder("class Dispatch { int dispatch(int x, int y) {\n");
+        for (int i = 0; i < branches; i++) {
+            source.append(i == 0 ? "    " : " else ").append("if (x > ").append(branches - 1 - i)
+                    .append(") { return y + ").append(i).append("; }\n");
+        }
+        source.append(" else { return y; } } }");
+        Translator translator = new Translator(new SymbolTable(), new MemoryFragmentCache());
+        String output = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> translator.translateSource(source.toString()));
+        assertEquals(branches + 1, output.split("\n\\(rule \\(dispatch x y\\) ", -1).length - 1);
+        assertTrue(output.startsWith("(format LCTRS :smtlib 2.6)\n(theory Ints)\n(fun dispatch (-> Int Int Int))\n"
+                + "(rule (dispatch x y) (+ y 0) :guard (> x 9999))\n"));
+        assertTrue(output.endsWith("(rule (dispatch x y) (+ y 9999) :guard (> x 0))\n(rule (dispatch x y) (y))"));
+    }
+
+    @Test
+    public void testLongSumIsFlattenedInPrefixOrder() {
+        int terms = 100_000;
+        BinaryExpr sum = new BinaryExpr(new NameExpr("x"), new NameExpr("y"), BinaryExpr.Operator.PLUS);
+        for (int i = 2; i < terms; i++) {
+            sum = new BinaryExpr(sum, new IntegerLiteralExpr(String.valueOf(i)), BinaryExpr.Operator.PLUS);
+        }
+        MethodDeclaration method = method("sum", new BlockStmt(new NodeList<>(new ReturnStmt(sum))));
+        ASTNode function = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> ruleBuilder.buildRule(method));
+        List<ASTNode> nodes = function.getChildren().getLast().getChildren().getFirst().getChildren();
+        assertEquals(2 * terms - 1, nodes.size());
+        assertEquals("+", nodes.get(terms - 2).getValue());
+        assertEquals("x", nodes.get(terms - 1).getValue());
+        assertEquals("y", nodes.get(terms).getValue());
+        assertEquals("2", nodes.get(terms + 1).getValue());
+        assertEquals(String.valueOf(terms - 1), nodes.getLast().getValue());
+    }
+
+    @Test
+    public void testLongGuardIsFlattenedInPrefixOrder() {
+        int conjuncts = 100_000;
+        Expression condition = new UnaryExpr(new NameExpr("b"), UnaryExpr.Operator.LOGICAL_COMPLEMENT);
+        for (int i = 1; i < conjuncts; i++) {
+            condition = new BinaryExpr(condition, new BinaryExpr(new NameExpr("x"),
+                    new IntegerLiteralExpr(String.valueOf(i)), BinaryExpr.Operator.GREATER), BinaryExpr.Operator.AND);
+        }
+        IfStmt ifStmt = new IfStmt(condition, new ReturnStmt(new NameExpr("x")), new ReturnStmt(new NameExpr("y")));
+        MethodDeclaration method = method("guard", new BlockStmt(new NodeList<>(ifStmt)));
+        ASTNode function = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> ruleBuilder.buildRule(method));
+        ASTNode guard = function.getChildren().getLast().getChildren().getFirst().getChildren().getLast();
+        List<ASTNode> nodes = guard.getChildren();
+        assertEquals("guard", guard.getValue());
+        assertEquals(conjuncts - 1 + 2 + 3 * (conjuncts - 1), nodes.size());
+        assertEquals("and", nodes.getFirst().getValue());
+        assertEquals("not", nodes.get(conjuncts - 1).getValue());
+        assertEquals("b", nodes.get(conjuncts).getValue());
+        assertEquals(">", nodes.get(conjuncts + 1).getValue());
+        assertEquals(String.valueOf(conjuncts - 1), nodes.getLast().getValue());
+    }
+
+    @Test
+    public void testSharedBuilderIsThreadSafe() throws Exception {
+        StringBuilder source = new StringBuilder("class Test {\n");
+        for (int i = 0; i < 500; i++) {
+            source.append("int m").append(i).append("(int x) { if (x > ").append(i).append(") { return f(x, ")
+                    .append(i).append("); } else { return x * ").append(i).append("; } }\n");
+        }
+        CompilationUnit cu = parser.parse(source.append("}").toString()).getResult().orElseThrow();
+        List<MethodDeclaration> methods = cu.findAll(MethodDeclaration.class);
+        List<String> expected = methods.stream().map(method -> ruleBuilder.buildRule(method).toString()).toList();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                results.add(executor.submit(() ->
+                        methods.stream().map(method -> ruleBuilder.buildRule(method).toString()).toList()));
+            }
+            for (Future<List<String>> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    //Builds the chain directly, so the allocation measured is the builder's alone
+    private MethodDeclaration elseIfChain(int branches) {
+        IfStmt first = null;
+        IfStmt last = null;
+        for (int i = 0; i < branches; i++) {
+            BinaryExpr condition = new BinaryExpr(new NameExpr("x"),
+                    new IntegerLiteralExpr(String.valueOf(branches - 1 - i)), BinaryExpr.Operator.GREATER);
+            BinaryExpr result = new BinaryExpr(new NameExpr("y"), new IntegerLiteralExpr(String.valueOf(i)),
+                    BinaryExpr.Operator.PLUS);
+            IfStmt branch = new IfStmt(condition, new BlockStmt(new NodeList<>(new ReturnStmt(result))), null);
+            if (last == null) {
+                first = branch;
+            } else {
+                last.setElseStmt(branch);
+            }
+            last = branch;
+        }
+        last.setElseStmt(new BlockStmt(new NodeList<>(new ReturnStmt(new NameExpr("y")))));
+        return method("dispatch", new BlockStmt(new NodeList<>(first)));
+    }
+
+    private MethodDeclaration method(String name, BlockStmt body) {
+        MethodDeclaration method = new MethodDeclaration(new NodeList<>(Modifier.publicModifier()),
+                PrimitiveType.intType(), name);
+        method.addParameter(new Parameter(PrimitiveType.intType(), "x"));
+        method.addParameter(new Parameter(PrimitiveType.intType(), "y"));
+        method.setBody(body);
+        return method;
+    }
+
     private MethodDeclaration parseMethod(String methodCode) {
         CompilationUnit cu = parser.parse("class Test { " + methodCode + " }").getResult().orElseThrow();
         return cu.findFirst(MethodDeclaration.class).orElseThrow();
@@ -0,0 +1,93 @@
+import org.junit.jupiter.api.Test;
+import transformer.ASTNode;
+import transformer.DefaultASTNode;
+import transformer.GuardAnalysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GuardAnalysisTest {
+    private final GuardAnalysis analysis = new GuardAnalysis(Map.of("x", "Int", "r", "Real"));
+
+    @Test
+    public void testUnsatisfiableGuard() {
+        assertFalse(analysis.canFire(guard("and > x 3 < x 4")));
+        assertTrue(analysis.canFire(guard("and > r 3 < r 4")));
+        assertFalse(analysis.canFire(guard("false")));
+    }
+
+    @Test
+    public void testSubsumedGuard() {
+        assertTrue(analysis.canFire(guard("> x 5")));
+        assertFalse(analysis.canFire(guard("> x 10")));
+        assertFalse(analysis.canFire(guard(">= x 6")));
+        assertTrue(analysis.canFire(guard("> x 4")));
+    }
+
+    @Test
+    public void testElseCoveredByIntegerRanges() {
+        assertTrue(analysis.canFire(guard("> x 0")));
+        assertTrue(analysis.canFire(guard("< x 0")));
+        assertTrue(analysis.canFireOtherwise());
+        assertTrue(analysis.canFire(guard("== x 0")));
+        assertFalse(analysis.canFireOtherwise());
+    }
+
+    @Test
+    public void testRealRangesLeaveBoundaryUncovered() {
+        assertTrue(analysis.canFire(guard("> r 0")));
+        assertTrue(analysis.canFire(guard("< r 0")));
+        assertTrue(analysis.canFireOtherwise());
+        assertTrue(analysis.canFire(guard("<= r 0.0")));
+        assertFalse(analysis.canFireOtherwise());
+    }
+
+    @Test
+    public void testUnknownGuardsNeverShadow() {
+        assertTrue(analysis.canFire(guard("or > x 5 < x 0")));
+        assertTrue(analysis.canFire(guard("> x 6")));
+        assertTrue(analysis.canFire(guard("and > y 1 > x 3")));
+        assertTrue(analysis.canFire(guard("> y 1")));
+        assertTrue(analysis.canFire(guard("and b < x 3")));
+        assertTrue(analysis.canFire(guard("< x 2")));
+    }
+
+    @Test
+    public void testUnknownConjunctsDoNotSaveSubsumedGuard() {
+        assertTrue(analysis.canFire(guard("> x 5")));
+        assertFalse(analysis.canFire(guard("and b > x 7")));
+    }
+
+    @Test
+    public void testLongEqualityChainIsCovered() {
+        int branches = 20_000;
+        assertTrue(analysis.canFire(guard("< x 0")));
+        for (int i = 0; i < branches; i++) {
+            assertTrue(analysis.canFire(guard("== x " + i)));
+            assertFalse(analysis.canFire(guard("== x " + i / 2)));
+        }
+        assertTrue(analysis.canFireOtherwise());
+        assertTrue(analysis.canFire(guard(">= x " + branches)));
+        assertFalse(analysis.canFireOtherwise());
+    }
+
+    //Reads a prefix guard where every token is an operator, a number, a boolean or a variable
+    private static List<ASTNode> guard(String prefix) {
+        List<ASTNode> nodes = new ArrayList<>();
+        for (String token : prefix.split(" ")) {
+            String type;
+            if (token.matches("[a-z]+") && !token.equals("true") && !token.equals("false")) {
+                type = token.equals("and") || token.equals("or") || token.equals("not") ? "Operator" : "Variable";
+            } else if (token.matches("[0-9.]+") || token.equals("true") || token.equals("false")) {
+                type = "Value";
+            } else {
+                type = "Operator";
+            }
+            nodes.add(new DefaultASTNode(type, token));
+        }
+        return nodes;
+    }
+}
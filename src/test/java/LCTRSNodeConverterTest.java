@@ -0,0 +1,183 @@
+import com.github.javaparser.StaticJavaParser;
+import org.junit.jupiter.api.Test;
+import transformer.*;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LCTRSNodeConverterTest {
+
+    private final LCTRSNodeConverter converter = new LCTRSNodeConverter();
+
+    @Test
+    public void testConvertTranslatedProgram() {
+        ASTNode root = new ASTTransformer().transformTree(StaticJavaParser.parse("""
+                class Example {
+                    int clamp(int x) {
+                        if (x > 10) {
+                            return 10;
+                        } else if (x > 20) {
+                            return 20;
+                        } else {
+                            return inc(x);
+                        }
+                    }
+                    boolean check(int x) {
+                        int y = 10;
+                        return x == y;
+                    }
+                }"""));
+        LCTRSNode.Program program = converter.convert(root);
+        assertEquals(new LCTRSNode.Theory("Ints"), program.theory());
+        assertEquals(List.of(
+                new LCTRSNode.FunctionDecl("clamp", List.of("Int"), "Int"),
+                new LCTRSNode.FunctionDecl("check", List.of("Int"), "Boolean")), program.functions());
+
+        LCTRSNode.RuleSet clamp = program.ruleSets().getFirst();
+        assertEquals("clamp", clamp.function());
+        assertEquals(List.of("x"), clamp.parameters());
+        assertEquals(1, clamp.pruned());
+        LCTRSNode.Rule first = clamp.rules().getFirst();
+        assertEquals(List.of(new LCTRSNode.Literal("10")), first.terms());
+        assertEquals("guard", first.guard().kind());
+        assertEquals(List.of(new LCTRSNode.Op(">"), new LCTRSNode.Var("x"), new LCTRSNode.Literal("10")),
+                first.guard().terms());
+        LCTRSNode.Rule second = clamp.rules().get(1);
+        assertNull(second.guard());
+        assertEquals(List.of(new LCTRSNode.Op("inc"), new LCTRSNode.Literal("x")), second.terms());
+
+        LCTRSNode.RuleSet check = program.ruleSets().get(1);
+        assertEquals(List.of(new LCTRSNode.VarDecl("y", "Int")), check.rules().getFirst().terms());
+    }
+
+    @Test
+    public void testConvertedProgramEmitsTheSameTextAsTheTree() throws IOException {
+        ASTNode root = new ASTTransformer().transformTree(StaticJavaParser.parse("""
+                class Example {
+                    int clamp(int x, int y) {
+                        if (x > 10 && !(y < x)) {
+                            return 10 + x * y - 3;
+                        } else if (x > 20) {
+                            return 20;
+                        } else {
+                            return inc(x, y) + 1;
+                        }
+                    }
+                    boolean check(int x) {
+                        int y = 10;
+                        return x == y;
+                    }
+                    int zero() {
+                        return 0;
+                    }
+                }"""));
+        LCTRSTextGenerator generator = new LCTRSTextGenerator();
+        StringBuilder out = new StringBuilder();
+        generator.generate(converter.convert(root), out);
+        assertEquals(generator.generateText(root), out.toString());
+    }
+
+    @Test
+    public void testMalformedPrefixListKeepsNodeOrder() {
+        ASTNode root = programWithRule("Operator:+", "Variable:x", "Operator:-", "Value:1");
+        LCTRSNode.Rule rule = converter.convert(root).ruleSets().getFirst().rules().getFirst();
+        assertEquals(List.of(new LCTRSNode.Op("+"), new LCTRSNode.Var("x"), new LCTRSNode.Op("-"),
+                new LCTRSNode.Literal("1")), rule.terms());
+        assertEquals("(format LCTRS :smtlib 2.6)\n(theory Ints)\n(rule (f) (+ x - 1))",
+                new LCTRSTextGenerator().generateText(root));
+    }
+
+    @Test
+    public void testRuleWithoutChildren() {
+        ASTNode root = programWithRule();
+        LCTRSNode.Rule rule = converter.convert(root).ruleSets().getFirst().rules().getFirst();
+        assertEquals(new LCTRSNode.Rule(List.of(), null), rule);
+        assertEquals("(format LCTRS :smtlib 2.6)\n(theory Ints)\n(rule (f) ())",
+                new LCTRSTextGenerator().generateText(root));
+    }
+
+    @Test
+    public void testUnsupportedExpressionsStillTranslate() {
+        ASTNode root = new ASTTransformer().transformTree(StaticJavaParser.parse("""
+                class Example {
+                    int negative(int x) { return -1; }
+                    int negated(int x) { return -x; }
+                    boolean not(int x) { return !(x > 1); }
+                    int choice(int x) { return x > 1 ? 1 : 2; }
+                }"""));
+        String text = new LCTRSTextGenerator().generateText(root);
+        for (String function : List.of("negative", "negated", "not", "choice")) {
+            assertTrue(text.contains("\n(rule (" + function + " x) ())"), text);
+        }
+    }
+
+    @Test
+    public void testLongSumIsGeneratedWithoutDeepRecursion() {
+        int terms = 100_000;
+        String[] nodes = new String[2 * terms - 1];
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < terms - 1; i++) {
+            nodes[i] = "Operator:+";
+            expected.append("+ ");
+        }
+        for (int i = 0; i < terms; i++) {
+            nodes[terms - 1 + i] = "Variable:x" + (i % 3);
+            expected.append("x").append(i % 3).append(i < terms - 1 ? " " : "");
+        }
+        String text = new LCTRSTextGenerator().generateText(programWithRule(nodes));
+        assertTrue(text.endsWith("\n(rule (f) (" + expected + "))"));
+    }
+
+    @Test
+    public void testFindsSectionsByType() {
+        ASTNode root = new DefaultASTNode("Program");
+        root.addChild(new DefaultASTNode("Rules"));
+        root.addChild(new DefaultASTNode("Functions"));
+        root.addChild(new DefaultASTNode("Theory", "Core"));
+        LCTRSNode.Program program = converter.convert(root);
+        assertEquals("Core", program.theory().name());
+        assertTrue(program.functions().isEmpty());
+        assertTrue(program.ruleSets().isEmpty());
+    }
+
+    @Test
+    public void testRejectsUnknownNodes() {
+        ASTNode root = new DefaultASTNode("Program");
+        root.addChild(new DefaultASTNode("Theory", "Ints"));
+        root.addChild(new DefaultASTNode("Functions"));
+        ASTNode rules = new DefaultASTNode("Rules");
+        ASTNode function = new DefaultASTNode("Name", "f");
+        ASTNode functionRules = new DefaultASTNode("Rules");
+        ASTNode rule = new DefaultASTNode("Rule");
+        rule.addChild(new DefaultASTNode("VariableDec   ", "var"));
+        functionRules.addChild(rule);
+        function.addChild(functionRules);
+        rules.addChild(function);
+        root.addChild(rules);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> converter.convert(root));
+        assertEquals("Unexpected VariableDec    node in Rule", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> converter.convert(new DefaultASTNode("Program")));
+    }
+
+    //Builds a program with a single rule from type:value pairs
+    private static ASTNode programWithRule(String... nodes) {
+        ASTNode root = new DefaultASTNode("Program");
+        root.addChild(new DefaultASTNode("Theory", "Ints"));
+        root.addChild(new DefaultASTNode("Functions"));
+        ASTNode rules = new DefaultASTNode("Rules");
+        ASTNode function = new DefaultASTNode("Name", "f");
+        ASTNode functionRules = new DefaultASTNode("Rules");
+        ASTNode rule = new DefaultASTNode("Rule");
+        for (String node : nodes) {
+            String[] parts = node.split(":", 2);
+            rule.addChild(new DefaultASTNode(parts[0], parts[1]));
+        }
+        functionRules.addChild(rule);
+        function.addChild(functionRules);
+        rules.addChild(function);
+        root.addChild(rules);
+        return root;
+    }
+}
@@ -1,12 +1,18 @@
 import org.junit.jupiter.api.Test;
 import transformer.ASTNode;
 import transformer.DefaultASTNode;
+import transformer.LCTRSNode;
 import transformer.LCTRSTextGenerator;
+import transformer.Translator;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
     class LCTRSTextGeneratorTest {
@@ -22,6 +28,36 @@ import static org.junit.jupiter.api.Assertions.*;
             assertTrue(result.contains("\n(rule (f x y) (+ x y))"));
         }
 
+        @Test
+        void testGenerateToAppendableMatchesGenerateText() throws IOException {
+            ASTNode root = createTree();
+            LCTRSTextGenerator generator = new LCTRSTextGenerator();
+            StringBuilder out = new StringBuilder();
+            generator.generate(root, out);
+            assertEquals(generator.generateText(root), out.toString());
+        }
+
+        @Test
+        void testGenerateToChannel() throws IOException {
+            ASTNode root = createTree();
+            LCTRSTextGenerator generator = new LCTRSTextGenerator();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            generator.generate(root, Channels.newChannel(bytes));
+            assertEquals(generator.generateText(root), bytes.toString(StandardCharsets.UTF_8));
+        }
+
+        @Test
+        void testStreamingWriteToFile() throws IOException {
+            Path tempInputFile = Files.createTempFile("testInput", ".java");
+            ASTNode root = createTree();
+            LCTRSTextGenerator generator = new LCTRSTextGenerator();
+            generator.writeToFile(root, tempInputFile.toFile());
+            Path outputFile = tempInputFile.resolveSibling(tempInputFile.getFileName().toString().replace(".java", ".ari"));
+            assertEquals(generator.generateText(root), Files.readString(outputFile));
+            Files.deleteIfExists(outputFile);
+            Files.deleteIfExists(tempInputFile);
+        }
+
         @Test
         void testWriteToFile() throws IOException {
             Path tempInputFile = Files.createTempFile("testInput", ".java");
@@ -38,6 +74,41 @@ import static org.junit.jupiter.api.Assertions.*;
             Files.deleteIfExists(tempInputFile);
         }
 
+        @Test
+        void testVariableDeclarationAddsVar() {
+            String result = new Translator().translateSource("""
+                    class Equal {
+                        boolean areNumbersEqual(int x) {
+                            int y = 10;
+                            return x == y;
+                        }
+                    }""");
+            assertEquals("""
+                    (format LCTRS :smtlib 2.6)
+                    (theory Ints)
+                    (fun areNumbersEqual (-> Int Boolean))
+                    (rule (areNumbersEqual x) (var) :var ((y Int)))
+                    (rule (areNumbersEqual x) (== x y))""", result);
+        }
+
+        @Test
+        void testGenerateTypedProgram() throws IOException {
+            LCTRSNode.Program program = new LCTRSNode.Program(new LCTRSNode.Theory("Ints"),
+                    List.of(new LCTRSNode.FunctionDecl("zero", List.of(), "Int")),
+                    List.of(new LCTRSNode.RuleSet("zero", List.of(), List.of(
+                            new LCTRSNode.Rule(List.of(new LCTRSNode.Literal("0")), null)), 2)));
+            StringBuilder out = new StringBuilder();
+            new LCTRSTextGenerator().generate(program, out);
+            assertEquals("(format LCTRS :smtlib 2.6)\n(theory Ints)\n(fun zero Int)\n(rule (zero) (0))"
+                    + "\n; zero: 2 unreachable rules pruned", out.toString());
+        }
+
+        @Test
+        void testOutputFileIsNextToInputFile() {
+            File input = new File("examples", "Program.java");
+            assertEquals(new File("examples", "Program.ari"), new LCTRSTextGenerator().getOutputFile(input));
+        }
+
         private ASTNode createTree () {
             ASTNode root = new DefaultASTNode("Program");
             ASTNode theoryNode = new DefaultASTNode("Theory", "Ints");
@@ -0,0 +1,138 @@
+import cli.Frames;
+import cli.PipeMode;
+import cli.TranslationServer;
+import org.junit.jupiter.api.Test;
+import transformer.Translator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PipeModeTest {
+
+    @Test
+    public void testFramesAreAnsweredInInputOrder() throws IOException {
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        DataOutputStream frames = new DataOutputStream(input);
+        for (int i = 0; i < 50; i++) {
+            String source = i == 7 ? "class Broken { int f(int x) { return x + ; } }"
+                    : "class C" + i + " { int f" + i + "(int x) { return x + " + i + "; } }";
+            Frames.write(frames, source.getBytes(StandardCharsets.UTF_8));
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int failures = new PipeMode(Translator::new, 4, null)
+                .run(new ByteArrayInputStream(input.toByteArray()), output);
+        assertEquals(1, failures);
+
+        DataInputStream replies = new DataInputStream(new ByteArrayInputStream(output.toByteArray()));
+        for (int i = 0; i < 50; i++) {
+            int status = replies.readByte();
+            String reply = new String(Frames.read(replies), StandardCharsets.UTF_8);
+            if (i == 7) {
+                assertEquals(TranslationServer.STATUS_ERROR, status);
+            } else {
+                assertEquals(TranslationServer.STATUS_OK, status);
+                assertTrue(reply.contains("(rule (f" + i + " x) (+ x " + i + "))"), reply);
+            }
+        }
+        assertEquals(-1, replies.read());
+    }
+
+    @Test
+    public void testReadyResultIsFlushedWhileTheNextIsTranslated() throws IOException {
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        DataOutputStream frames = new DataOutputStream(input);
+        Frames.write(frames, "class Fast { int f(int x) { return x; } }".getBytes(StandardCharsets.UTF_8));
+        Frames.write(frames, "class Slow { int g(int x) { return x; } }".getBytes(StandardCharsets.UTF_8));
+        //The second unit is only translated once the first result has reached the output
+        CountDownLatch firstWritten = new CountDownLatch(1);
+        PipeMode pipe = new PipeMode(() -> new Translator() {
+            @Override
+            public String translateSource(String sourceCode) {
+                if (sourceCode.contains("Slow")) {
+                    try {
+                        firstWritten.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return super.translateSource(sourceCode);
+            }
+        }, 2, null);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        WritableByteChannel channel = new WritableByteChannel() {
+            private final WritableByteChannel written = Channels.newChannel(output);
+
+            @Override
+            public int write(ByteBuffer bytes) throws IOException {
+                int count = written.write(bytes);
+                firstWritten.countDown();
+                return count;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {}
+        };
+        int failures = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> pipe.run(
+                Channels.newChannel(new ByteArrayInputStream(input.toByteArray())), channel));
+        assertEquals(0, failures);
+        DataInputStream replies = new DataInputStream(new ByteArrayInputStream(output.toByteArray()));
+        for (String rule : List.of("(rule (f x) (x))", "(rule (g x) (x))")) {
+            assertEquals(TranslationServer.STATUS_OK, replies.readByte());
+            assertTrue(new String(Frames.read(replies), StandardCharsets.UTF_8).contains(rule));
+        }
+    }
+
+    @Test
+    public void testDelimitedUnits() throws IOException {
+        String input = """
+                class A { int f(int x) { return x + 1; } }
+                ---
+                class Broken { int f(int x) { return x + ; } }
+                ---
+                class B {
+                    int g(int y) { return y; }
+                }
+                """;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int failures = new PipeMode(Translator::new, 2, "---")
+                .run(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+        assertEquals(1, failures);
+
+        String[] results = output.toString(StandardCharsets.UTF_8).split("(?m)^---\n", -1);
+        assertEquals(4, results.length);
+        assertTrue(results[0].contains("(rule (f x) (+ x 1))"));
+        assertTrue(results[1].startsWith("; error: "));
+        assertTrue(results[2].contains("(rule (g y) (y))"));
+        assertEquals("", results[3]);
+    }
+
+    @Test
+    public void testTruncatedFrameFailsAfterEarlierResults() throws IOException {
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        DataOutputStream frames = new DataOutputStream(input);
+        Frames.write(frames, "class A { int f(int x) { return x; } }".getBytes(StandardCharsets.UTF_8));
+        frames.writeInt(100);
+        frames.write(new byte[10]);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PipeMode pipe = new PipeMode(Translator::new, 2, null);
+        assertThrows(IOException.class, () -> pipe.run(new ByteArrayInputStream(input.toByteArray()), output));
+        assertEquals(TranslationServer.STATUS_OK, output.toByteArray()[0]);
+    }
+}
@@ -0,0 +1,70 @@
+import cli.SourceCollector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SourceCollectorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCollectDirectoryFindsJavaFilesRecursively() throws IOException {
+        Path a = Files.createFile(tempDir.resolve("A.java"));
+        Files.createDirectory(tempDir.resolve("sub"));
+        Path b = Files.createFile(tempDir.resolve("sub").resolve("B.java"));
+        Files.createFile(tempDir.resolve("notes.txt"));
+        List<Path> sources = new SourceCollector().collect(List.of(tempDir.toString()));
+        assertEquals(List.of(a, b), sources);
+    }
+
+    @Test
+    public void testCollectGlobPattern() throws IOException {
+        Files.createFile(tempDir.resolve("IntTest.java"));
+        Path match = Files.createFile(tempDir.resolve("Other.java"));
+        List<Path> sources = new SourceCollector().collect(List.of(tempDir + "/O*.java"));
+        assertEquals(List.of(match), sources);
+    }
+
+    @Test
+    public void testCollectRemovesDuplicates() throws IOException {
+        Path a = Files.createFile(tempDir.resolve("A.java"));
+        List<Path> sources = new SourceCollector().collect(List.of(a.toString(), tempDir.toString()));
+        assertEquals(List.of(a), sources);
+    }
+
+    @Test
+    public void testCollectArchiveReadsEntriesInPlace() throws IOException {
+        Path jar = tempDir.resolve("lib-sources.jar");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+            for (String entry : List.of("com/example/B.java", "com/example/A.java", "META-INF/MANIFEST.MF")) {
+                zip.putNextEntry(new ZipEntry(entry));
+                zip.write(("// " + entry).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        Path plain = Files.createFile(tempDir.resolve("Plain.java"));
+        try (SourceCollector collector = new SourceCollector()) {
+            List<SourceCollector.Source> sources = collector.collectSources(List.of(plain.toString(), jar.toString()));
+            assertEquals(List.of("Plain.java", "com/example/A.java", "com/example/B.java"),
+                    sources.stream().map(SourceCollector.Source::relativePath).toList());
+            assertEquals(plain, sources.getFirst().path());
+            assertEquals("// com/example/A.java", Files.readString(sources.get(1).path()));
+        }
+    }
+
+    @Test
+    public void testCollectMissingFile() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SourceCollector().collect(List.of(tempDir.resolve("Missing.java").toString())));
+    }
+}
@@ -0,0 +1,89 @@
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import transformer.SourceParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SourceParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SourceParser parser = new SourceParser();
+
+    @Test
+    public void testParseDoesNotAttributeComments() {
+        CompilationUnit cu = parser.parse("class Test { /** Adds one */ int f(int x) { return x + 1; } }");
+        MethodDeclaration method = cu.findFirst(MethodDeclaration.class).orElseThrow();
+        assertTrue(method.getComment().isEmpty());
+        assertEquals("x + 1", method.getBody().orElseThrow().getStatement(0).asReturnStmt()
+                .getExpression().orElseThrow().toString());
+    }
+
+    @Test
+    public void testParseSmallFileAsUtf8() throws IOException {
+        Path source = Files.writeString(tempDir.resolve("Small.java"),
+                "class Small { char f() { return 'é'; } }", StandardCharsets.UTF_8);
+        CompilationUnit cu = parser.parse(source);
+        assertEquals("é", cu.findFirst(MethodDeclaration.class).orElseThrow().getBody().orElseThrow()
+                .getStatement(0).asReturnStmt().getExpression().orElseThrow().asCharLiteralExpr().getValue());
+    }
+
+    @Test
+    public void testParseLargeFileThroughMapping() throws IOException {
+        StringBuilder source = new StringBuilder("class Large {\n");
+        for (int i = 0; i < 2000; i++) {
+            source.append("    int f").append(i).append("(int x) { return x + ").append(i).append("; } // π\n");
+        }
+        source.append("}\n");
+        Path file = Files.writeString(tempDir.resolve("Large.java"), source, StandardCharsets.UTF_8);
+        assertTrue(Files.size(file) > 64 * 1024);
+        CompilationUnit cu = parser.parse(file);
+        assertEquals(2000, cu.findAll(MethodDeclaration.class).size());
+        assertEquals(parser.parse(source.toString()), cu);
+    }
+
+    @Test
+    public void testParseRejectsMalformedUtf8() throws IOException {
+        Path source = Files.write(tempDir.resolve("Latin1.java"),
+                "class Latin1 { char f() { return 'é'; } int g() { return 1; } }".getBytes(StandardCharsets.ISO_8859_1));
+        assertThrows(IOException.class, () -> parser.parse(source));
+    }
+
+    @Test
+    public void testParseLargeFileDecodesCharactersAcrossReads() throws IOException {
+        StringBuilder source = new StringBuilder("class Wide {\n");
+        for (int i = 0; i < 3000; i++) {
+            source.append("    String s").append(i).append("() { return \"\uD83D\uDE00é").append(i).append("\"; }\n");
+        }
+        source.append("}\n");
+        Path file = Files.writeString(tempDir.resolve("Wide.java"), source, StandardCharsets.UTF_8);
+        assertTrue(Files.size(file) > 64 * 1024);
+        assertEquals(parser.parse(source.toString()), parser.parse(file));
+    }
+
+    @Test
+    public void testParseLargeFileRejectsMalformedUtf8() throws IOException {
+        StringBuilder source = new StringBuilder("class Latin1 {\n");
+        for (int i = 0; i < 3000; i++) {
+            source.append("    char f").append(i).append("() { return 'é'; }\n");
+        }
+        Path file = Files.write(tempDir.resolve("Latin1.java"),
+                source.append("}\n").toString().getBytes(StandardCharsets.ISO_8859_1));
+        assertTrue(Files.size(file) > 64 * 1024);
+        assertThrows(IOException.class, () -> parser.parse(file));
+    }
+
+    @Test
+    public void testParseInvalidSourceThrows() {
+        assertThrows(ParseProblemException.class, () -> parser.parse("class Broken { int f(int x) { return x + ; } }"));
+    }
+}
@@ -0,0 +1,73 @@
+import org.junit.jupiter.api.Test;
+import transformer.ASTNode;
+import transformer.ASTNodeFactory;
+import transformer.DefaultASTNode;
+import transformer.SymbolTable;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SymbolTableTest {
+
+    @Test
+    public void testWellKnownSymbolsHaveConstantIds() {
+        SymbolTable symbols = new SymbolTable();
+        assertEquals(SymbolTable.GUARD, symbols.intern("Guard"));
+        assertEquals(SymbolTable.INT, symbols.intern("Int"));
+        assertEquals(SymbolTable.PARAMETER_TYPE, SymbolTable.wellKnownId("ParameterType"));
+        assertEquals(SymbolTable.NONE, SymbolTable.wellKnownId("addFive"));
+    }
+
+    @Test
+    public void testInternReturnsSameIdAndCanonicalString() {
+        SymbolTable symbols = new SymbolTable();
+        String name = new String("addFive");
+        int id = symbols.intern(name);
+        assertEquals(id, symbols.intern("addFive"));
+        assertSame(name, symbols.canonical(new String("addFive")));
+        assertEquals("addFive", symbols.symbol(id));
+        assertEquals(SymbolTable.NONE, symbols.intern(null));
+        assertNull(symbols.symbol(SymbolTable.NONE));
+    }
+
+    @Test
+    public void testConcurrentInterning() {
+        SymbolTable symbols = new SymbolTable();
+        List<Integer> ids = IntStream.range(0, 10_000).parallel().map(i -> symbols.intern("x" + (i % 500))).boxed().toList();
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals("x" + (i % 500), symbols.symbol(ids.get(i)));
+        }
+    }
+
+    @Test
+    public void testInterningFactoryOnlyInternsSymbols() {
+        SymbolTable symbols = new SymbolTable();
+        ASTNodeFactory factory = ASTNodeFactory.interning(symbols);
+        int before = symbols.size();
+        factory.create("Variable", "x");
+        factory.create("Parameter", "y");
+        factory.create("Operator", "+");
+        assertEquals(before + 3, symbols.size());
+        for (int i = 0; i < 100; i++) {
+            factory.create("Value", String.valueOf(i));
+            factory.create("Parameter", "x + " + i);
+            factory.create("Pruned", String.valueOf(i));
+        }
+        assertEquals(before + 3, symbols.size());
+        assertSame(symbols.canonical("x"), factory.create("Variable", new String("x")).getValue());
+    }
+
+    @Test
+    public void testNodesExposeTypeIds() {
+        SymbolTable symbols = new SymbolTable();
+        ASTNodeFactory factory = ASTNodeFactory.interning(symbols);
+        assertEquals(SymbolTable.GUARD, factory.create("Guard", "guard").getTypeId());
+        assertEquals(SymbolTable.PARAMETER, factory.create("Parameter", "x").getTypeId());
+        assertEquals(SymbolTable.NONE, new DefaultASTNode("Custom").getTypeId());
+        ASTNode node = new DefaultASTNode("Custom");
+        node.setType("Rule");
+        assertEquals(SymbolTable.RULE, node.getTypeId());
+    }
+}
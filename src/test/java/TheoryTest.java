@@ -0,0 +1,33 @@
+import org.junit.jupiter.api.Test;
+import transformer.Theory;
+import transformer.Translator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TheoryTest {
+
+    @Test
+    public void testJoin() {
+        assertEquals(Theory.INTS, Theory.CORE.join(Theory.INTS));
+        assertEquals(Theory.REALS_INTS, Theory.INTS.join(Theory.REALS));
+        assertEquals(Theory.REALS, Theory.REALS.join(Theory.REALS));
+        assertEquals(Theory.FIXED_SIZE_BIT_VECTORS, Theory.REALS_INTS.join(Theory.FIXED_SIZE_BIT_VECTORS));
+        assertEquals(Theory.FIXED_SIZE_BIT_VECTORS, Theory.FIXED_SIZE_BIT_VECTORS.join(Theory.CORE));
+    }
+
+    @Test
+    public void testFromName() {
+        for (Theory theory : Theory.values()) {
+            assertEquals(theory, Theory.fromName(theory.getName()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> Theory.fromName("Strings"));
+    }
+
+    @Test
+    public void testDeclaredVariableSortCountsTowardsTheory() {
+        String declaresReal = new Translator().translateSource("class T { boolean f(boolean b) { double y; return b; } }");
+        assertTrue(declaresReal.contains("\n(theory Reals)\n"), declaresReal);
+        String booleanOnly = new Translator().translateSource("class T { boolean f(boolean b) { return b; } }");
+        assertTrue(booleanOnly.contains("\n(theory Core)\n"), booleanOnly);
+    }
+}
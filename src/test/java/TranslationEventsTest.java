@@ -0,0 +1,88 @@
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import transformer.TranslationEvents;
+import transformer.Translator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranslationEventsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testBundledSettingsRecordEveryPhase() throws IOException {
+        Path source = Files.writeString(tempDir.resolve("Sign.java"), """
+                class Sign {
+                    int sign(int x) {
+                        if (x > 0) {
+                            return 1;
+                        } else if (x > 5) {
+                            return 2;
+                        } else {
+                            return 0;
+                        }
+                    }
+                    int twice(int x) { return x * 2; }
+                }""");
+        Path recordingFile = tempDir.resolve("run.jfr");
+        try (Recording recording = new Recording(TranslationEvents.configuration())) {
+            recording.start();
+            new Translator().translateFile(source);
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile).stream()
+                .filter(event -> event.getEventType().getName().startsWith("javatolctrs."))
+                .toList();
+
+        RecordedEvent parse = only(events, "javatolctrs.Parse");
+        assertEquals(source.toString(), parse.getString("source"));
+        assertEquals(Files.size(source), parse.getLong("size"));
+        RecordedEvent transform = only(events, "javatolctrs.Transform");
+        assertEquals(2, transform.getInt("methods"));
+        assertEquals(2, transform.getInt("functions"));
+        assertEquals(2, only(events, "javatolctrs.Generate").getInt("functions"));
+        RecordedEvent write = only(events, "javatolctrs.Write");
+        assertEquals(Files.size(tempDir.resolve("Sign.ari")), write.getLong("size"));
+
+        List<RecordedEvent> builds = events.stream()
+                .filter(event -> event.getEventType().getName().equals("javatolctrs.BuildRule"))
+                .toList();
+        assertEquals(List.of("sign", "twice"), builds.stream().map(event -> event.getString("method")).toList());
+        RecordedEvent sign = builds.getFirst();
+        assertEquals("Sign", sign.getString("type"));
+        assertEquals(2, sign.getInt("rules"));
+        assertEquals(1, sign.getInt("pruned"));
+        assertTrue(sign.getLong("nodes") > builds.get(1).getLong("nodes"));
+    }
+
+    @Test
+    public void testEventsAreOffByDefault() throws IOException {
+        Path recordingFile = tempDir.resolve("default.jfr");
+        try (Recording recording = new Recording()) {
+            recording.start();
+            new Translator().translateSource("class A { int f(int x) { return x; } }");
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        assertTrue(RecordingFile.readAllEvents(recordingFile).stream()
+                .noneMatch(event -> event.getEventType().getName().startsWith("javatolctrs.")));
+    }
+
+    private static RecordedEvent only(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .toList();
+        assertEquals(1, matching.size(), name);
+        return matching.getFirst();
+    }
+}
@@ -0,0 +1,96 @@
+import cli.TranslationClient;
+import cli.TranslationServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import transformer.Translator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.SocketAddress;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranslationServerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SocketAddress address;
+    private Thread serverThread;
+
+    private final String source = """
+            class AddFive {
+                int addFive(int x) {
+                    return x + 5;
+                }
+            }""";
+
+    @BeforeEach
+    public void startServer() throws InterruptedException, IOException {
+        address = TranslationServer.addressOf(tempDir.resolve("lctrs.sock").toString(), 0);
+        TranslationServer server = new TranslationServer(address, null, new PrintStream(new ByteArrayOutputStream()));
+        serverThread = Thread.ofPlatform().daemon().start(() -> {
+            try {
+                server.run();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        for (int attempt = 0; ; attempt++) {
+            try {
+                new TranslationClient(address).close();
+                return;
+            } catch (IOException e) {
+                if (attempt == 500) {
+                    throw e;
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @AfterEach
+    public void stopServer() throws InterruptedException {
+        serverThread.interrupt();
+        serverThread.join();
+    }
+
+    @Test
+    public void testTranslateOverSocket() throws IOException {
+        try (TranslationClient client = new TranslationClient(address)) {
+            assertEquals(new Translator().translateSource(source), client.translate(source));
+            assertEquals(new Translator().translateSource(source), client.translate(source));
+        }
+    }
+
+    @Test
+    public void testErrorsAreReportedAndConnectionStaysUsable() throws IOException {
+        try (TranslationClient client = new TranslationClient(address)) {
+            assertThrows(IllegalArgumentException.class, () -> client.translate("class Broken {"));
+            assertTrue(client.translate(source).contains("(rule (addFive x) (+ x 5))"));
+        }
+    }
+
+    @Test
+    public void testConcurrentClients() throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<String>> replies = executor.invokeAll(Collections.nCopies(16, () -> {
+                try (TranslationClient client = new TranslationClient(address)) {
+                    return client.translate(source);
+                }
+            }));
+            for (Future<String> reply : replies) {
+                assertTrue(reply.get().contains("(fun addFive (-> Int Int))"));
+            }
+        }
+    }
+}
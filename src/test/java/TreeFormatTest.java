@@ -0,0 +1,140 @@
+import com.github.javaparser.StaticJavaParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import transformer.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeFormatTest {
+
+    @TempDir
+    Path directory;
+
+    private final String source = """
+            class Numbers {
+                int sign(int x) {
+                    if (x > 0) {
+                        return 1;
+                    } else if (x < 0) {
+                        return -1;
+                    }
+                    return 0;
+                }
+
+                double half(double y) {
+                    double z = y / 2.0;
+                    return z;
+                }
+
+                char next(char c) {
+                    return c;
+                }
+            }""";
+
+    @Test
+    public void testEncodeDecodeRoundTrip() throws IOException {
+        ASTNode root = new ASTTransformer().transformTree(StaticJavaParser.parse(source));
+        ASTNode decoded = TreeFormat.decode(ByteBuffer.wrap(TreeFormat.encode(root)), ASTNodeFactory.DEFAULT);
+        assertEquals(describe(root), describe(decoded));
+        assertInstanceOf(DefaultASTNode.class, decoded);
+    }
+
+    @Test
+    public void testDecodeWithFactory() throws IOException {
+        ASTNode root = new ASTTransformer().transformTree(StaticJavaParser.parse(source));
+        ASTNode decoded = TreeFormat.decode(ByteBuffer.wrap(TreeFormat.encode(root)), ASTNodeFactory.interning(new SymbolTable()));
+        assertEquals(describe(root), describe(decoded));
+        assertEquals(new LCTRSTextGenerator().generateText(root), new LCTRSTextGenerator().generateText(decoded));
+    }
+
+    @Test
+    public void testNullValuesAndUnicodeSurvive() throws IOException {
+        ASTNode root = new DefaultASTNode("Program");
+        ASTNode named = new DefaultASTNode("Name", "größe");
+        named.addChild(new DefaultASTNode("Value", ""));
+        named.addChild(new DefaultASTNode("Value", "😀"));
+        root.addChild(named);
+        root.addChild(new DefaultASTNode("Rules"));
+        ASTNode decoded = TreeFormat.decode(ByteBuffer.wrap(TreeFormat.encode(root)), ASTNodeFactory.DEFAULT);
+        assertEquals(describe(root), describe(decoded));
+        assertNull(decoded.getValue());
+        assertEquals("", decoded.getChildren().get(0).getChildren().get(0).getValue());
+    }
+
+    @Test
+    public void testDecodeAdvancesBufferPastTree() throws IOException {
+        byte[] first = TreeFormat.encode(new DefaultASTNode("Value", "1"));
+        byte[] second = TreeFormat.encode(new DefaultASTNode("Value", "2"));
+        ByteBuffer buffer = ByteBuffer.allocate(first.length + second.length).put(first).put(second).flip();
+        assertEquals("1", TreeFormat.decode(buffer, ASTNodeFactory.DEFAULT).getValue());
+        assertEquals(first.length, buffer.position());
+        assertEquals("2", TreeFormat.decode(buffer, ASTNodeFactory.DEFAULT).getValue());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testStringsAreStoredOnce() {
+        ASTNode root = new DefaultASTNode("Rules");
+        for (int i = 0; i < 1000; i++) {
+            ASTNode rule = new DefaultASTNode("Rule");
+            rule.addChild(new DefaultASTNode("Variable", "counter"));
+            root.addChild(rule);
+        }
+        byte[] encoded = TreeFormat.encode(root);
+        //Eight bytes per rule: two node records of four one-byte varints
+        assertTrue(encoded.length < 1000 * 8 + 64, "encoded size " + encoded.length);
+        String text = new String(encoded, StandardCharsets.ISO_8859_1);
+        assertEquals(text.indexOf("counter"), text.lastIndexOf("counter"));
+    }
+
+    @Test
+    public void testReadMappedFileLazily() throws IOException {
+        ASTNode root = new ASTTransformer().transformTree(StaticJavaParser.parse(source));
+        Path file = directory.resolve("Numbers.lctb");
+        TreeFormat.write(root, file);
+        ASTNode mapped = TreeFormat.read(file);
+        assertEquals(describe(root), describe(mapped));
+        assertEquals(new LCTRSTextGenerator().generateText(root), new LCTRSTextGenerator().generateText(mapped));
+        assertEquals(SymbolTable.PROGRAM, mapped.getTypeId());
+    }
+
+    @Test
+    public void testMappedTreeCanBeModified() throws IOException {
+        ASTNode root = new ASTTransformer().transformTree(StaticJavaParser.parse(source));
+        Path file = directory.resolve("Numbers.lctb");
+        TreeFormat.write(root, file);
+        ASTNode mapped = TreeFormat.read(file);
+        ASTNode theory = mapped.getChildren().get(0);
+        theory.setValue("Reals_Ints");
+        mapped.getChildren().get(2).getChildren().removeFirst();
+        mapped.addChild(new DefaultASTNode("Value", "extra"));
+        assertEquals("Reals_Ints", mapped.getChildren().get(0).getValue());
+        assertEquals(root.getChildren().get(2).getChildren().size() - 1,
+                mapped.getChildren().get(2).getChildren().size());
+        assertEquals("extra", mapped.getChildren().getLast().getValue());
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws IOException {
+        Path file = directory.resolve("Numbers.ari");
+        Files.writeString(file, "(format LCTRS :smtlib 2.6)");
+        assertThrows(IOException.class, () -> TreeFormat.read(file));
+        byte[] encoded = TreeFormat.encode(new ASTTransformer().transformTree(StaticJavaParser.parse(source)));
+        ByteBuffer truncated = ByteBuffer.wrap(encoded, 0, encoded.length - 1).slice();
+        assertThrows(IOException.class, () -> TreeFormat.decode(truncated, ASTNodeFactory.DEFAULT));
+    }
+
+    private static String describe(ASTNode node) {
+        StringBuilder sb = new StringBuilder(node.getType() + "(" + node.getValue() + ")[");
+        for (ASTNode child : node.getChildren()) {
+            sb.append(describe(child)).append(',');
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,95 @@
+import cli.WatchMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import transformer.DiskFragmentCache;
+import transformer.FragmentCache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WatchModeTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final String source = """
+            class Calc {
+                int addFive(int x) {
+                    return x + 5;
+                }
+
+                int twice(int x) {
+                    return x * 2;
+                }
+            }""";
+
+    @Test
+    public void testUpdateRebuildsOnlyChangedMethods() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("Calc.java"), source);
+        WatchMode watch = new WatchMode(List.of(tempDir.toString()), new PrintStream(new ByteArrayOutputStream()));
+        WatchMode.Update first = watch.update(file);
+        assertEquals(2, first.methods());
+        assertEquals(2, first.rebuiltMethods());
+
+        Files.writeString(file, source.replace("x + 5", "x + 6"));
+        WatchMode.Update second = watch.update(file);
+        assertEquals(2, second.methods());
+        assertEquals(1, second.rebuiltMethods());
+        assertTrue(Files.readString(tempDir.resolve("Calc.ari")).contains("(rule (addFive x) (+ x 6))"));
+    }
+
+    @Test
+    public void testArchiveInputsAreRejected() throws IOException {
+        Path jar = tempDir.resolve("lib-sources.jar");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+            zip.putNextEntry(new ZipEntry("Calc.java"));
+            zip.write(source.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        WatchMode watch = new WatchMode(List.of(jar.toString()), new PrintStream(new ByteArrayOutputStream()));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, watch::run);
+        assertTrue(e.getMessage().contains(jar.toString()));
+    }
+
+    @Test
+    public void testUpdateIgnoresChangesOutsideCode() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("Calc.java"), source);
+        WatchMode watch = new WatchMode(List.of(tempDir.toString()), new PrintStream(new ByteArrayOutputStream()));
+        assertNotNull(watch.update(file));
+        Files.writeString(file, "// comment only\n" + source + "\n");
+        assertNull(watch.update(file));
+    }
+
+    @Test
+    public void testUpdateForgetsDeletedFiles() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("Calc.java"), source);
+        WatchMode watch = new WatchMode(List.of(tempDir.toString()), new PrintStream(new ByteArrayOutputStream()));
+        assertNotNull(watch.update(file));
+        Files.delete(file);
+        assertNull(watch.update(file));
+        assertFalse(Files.exists(tempDir.resolve("Calc.ari")));
+        Files.writeString(file, source);
+        assertNotNull(watch.update(file));
+        assertTrue(Files.exists(tempDir.resolve("Calc.ari")));
+    }
+
+    @Test
+    public void testPersistentCacheIsSharedAcrossRuns() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("Calc.java"), source);
+        FragmentCache cache = new DiskFragmentCache(tempDir.resolve("cache"), 1 << 20);
+        PrintStream quiet = new PrintStream(new ByteArrayOutputStream());
+        assertEquals(2, new WatchMode(List.of(tempDir.toString()), cache, 2, quiet).update(file).rebuiltMethods());
+        WatchMode.Update restarted = new WatchMode(List.of(tempDir.toString()), cache, 2, quiet).update(file);
+        assertEquals(2, restarted.methods());
+        assertEquals(0, restarted.rebuiltMethods());
+    }
+}